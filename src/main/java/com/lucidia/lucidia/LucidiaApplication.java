@@ -5,18 +5,60 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.Parent;
 import javafx.stage.Stage;
+import com.lucidia.lucidia.controller.MainController;
 import com.lucidia.lucidia.service.DatabaseService;
+import com.lucidia.lucidia.service.NLPService;
+import com.lucidia.lucidia.service.SyncService;
+import com.lucidia.lucidia.util.AppExecutors;
+import com.lucidia.lucidia.util.DatabaseConfig;
+import com.lucidia.lucidia.util.StartupTimer;
+import com.lucidia.lucidia.util.ViewRegistry;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 public class LucidiaApplication extends Application {
 
+    // Enough analyses for the JIT to compile the NLP hot loops
+    private static final int NLP_WARM_UP_ITERATIONS = 300;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        // Initialize database connection
-        DatabaseService.getInstance().initialize();
+        StartupTimer.mark("JavaFX started");
+
+        // Saves go through the PostgreSQL write-behind queue and history is synced from PostgreSQL,
+        // so with another backend a dream and its analysis would land in different stores
+        if (!"postgres".equals(DatabaseConfig.REPOSITORY_BACKEND)) {
+            throw new IllegalStateException("The desktop app needs -Dlucidia.repository=postgres, not '"
+                    + DatabaseConfig.REPOSITORY_BACKEND + "'; the file and memory backends are for the API server");
+        }
+
+        // Nothing here needs the window, and the window needs none of it, so it all runs alongside.
+        // Without a database the journal is served from the local store
+        CompletableFuture<Void> database = CompletableFuture.runAsync(() -> StartupTimer.time("database", () -> {
+            try {
+                DatabaseService.getInstance().initialize();
+            } catch (SQLException e) {
+                System.err.println("PostgreSQL unavailable, starting offline: " + e.getMessage());
+            }
+        }), AppExecutors.io());
+
+        // Loading NLPService builds the lexicons; the warm-up then gets the first analysis JIT-compiled
+        CompletableFuture<Void> nlp = CompletableFuture.runAsync(() -> {
+            StartupTimer.time("nlp lexicons", () -> {
+                try {
+                    Class.forName(NLPService.class.getName(), true, NLPService.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            StartupTimer.time("nlp warm-up", () -> NLPService.warmUp(NLP_WARM_UP_ITERATIONS));
+        }, AppExecutors.cpu());
 
         // Load main FXML
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main.fxml"));
         Parent root = loader.load();
+        StartupTimer.mark("main view loaded");
 
         // Create scene
         Scene scene = new Scene(root, 1000, 700);
@@ -27,6 +69,25 @@ public class LucidiaApplication extends Application {
         primaryStage.setMinWidth(800);
         primaryStage.setMinHeight(600);
         primaryStage.show();
+        StartupTimer.mark("window shown");
+
+        // History and analytics preview fill in as their data arrives
+        MainController controller = loader.getController();
+        CompletableFuture<Void> initialData = controller.loadInitialData(database);
+
+        // Pulls the journal into the local store and keeps retrying the database while offline
+        database.thenRun(() -> SyncService.getInstance().start(1));
+
+        // Parse the secondary screens now, so opening them later costs no FXML load
+        CompletableFuture<Void> views = ViewRegistry.preload();
+
+        CompletableFuture.allOf(database, nlp, initialData, views).whenComplete((done, error) -> {
+            if (error != null) {
+                System.err.println("Startup task failed: " + error.getMessage());
+            }
+            StartupTimer.mark("startup settled");
+            StartupTimer.report();
+        });
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,259 @@
+package com.lucidia.lucidia.cli;
+
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+import com.lucidia.lucidia.service.BulkImportService;
+import com.lucidia.lucidia.service.DatabaseService;
+import com.lucidia.lucidia.service.DreamAnalysisService;
+import com.lucidia.lucidia.service.DreamAnalyticsService;
+import com.lucidia.lucidia.service.DreamExportService;
+import com.lucidia.lucidia.service.DreamJournalParser;
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Headless batch entry point for scripted jobs. Never touches JavaFX, so it
+ * starts as fast as the JVM and a single database connection allow.
+ *
+ * <pre>
+ * lucidia import    &lt;file&gt; [--user N] [--format text|jsonl|csv] [--date yyyy-MM-dd]
+ *                   [--chunk-size N] [--analyze] [--parallelism N] [--strict]
+ * lucidia reanalyze [--user N] [--parallelism N]
+ * lucidia stats     [--user N]
+ * lucidia export    &lt;file.jsonl|file.csv[.gz]&gt; [--user N]
+ * </pre>
+ */
+public class LucidiaCli {
+
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> arguments = new ArrayList<>();
+
+    private LucidiaCli(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--analyze") || arg.equals("--strict")) {
+                options.put(arg.substring(2), "true");
+            } else if (arg.startsWith("--")) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                arguments.add(arg);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].equals("help") || args[0].equals("--help")) {
+            printUsage();
+            return;
+        }
+
+        long start = System.nanoTime();
+        int exitCode;
+        try {
+            exitCode = new LucidiaCli(Arrays.copyOfRange(args, 1, args.length)).run(args[0]);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            exitCode = 2;
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            exitCode = 1;
+        }
+
+        System.err.printf("Finished in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.exit(exitCode);
+    }
+
+    private int run(String command) throws Exception {
+        switch (command) {
+            case "import":
+                return importJournal();
+            case "reanalyze":
+                return reanalyze();
+            case "stats":
+                return printStatistics();
+            case "export":
+                return exportDreams();
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private int importJournal() throws Exception {
+        Path source = Path.of(requireArgument("input file"));
+        int userId = getUserId();
+        LocalDate dreamDate = options.containsKey("date") ? LocalDate.parse(options.get("date")) : LocalDate.now();
+        DreamJournalParser.Format format = options.containsKey("format")
+                ? DreamJournalParser.Format.valueOf(options.get("format").toUpperCase(Locale.ROOT))
+                : DreamJournalParser.Format.fromFileName(source.getFileName().toString());
+        boolean analyze = options.containsKey("analyze");
+        boolean strict = options.containsKey("strict");
+
+        connect();
+        BulkImportService importService = options.containsKey("chunk-size")
+                ? new BulkImportService(Integer.parseInt(options.get("chunk-size")))
+                : new BulkImportService();
+        DreamAnalysisService analysisService = analyze ? new DreamAnalysisService() : null;
+        ExecutorService workers = analyze ? createWorkers() : null;
+        List<Future<?>> pending = new ArrayList<>();
+
+        long imported;
+        DreamJournalParser parser;
+        try (BufferedReader reader = openReader(source)) {
+            parser = DreamJournalParser.create(reader, format, userId, dreamDate, strict);
+            // Analysis of each chunk overlaps with copying the next one
+            imported = importService.importDreams(parser, analyze
+                    ? dream -> pending.add(workers.submit(() -> analysisService.performFullAnalysis(dream)))
+                    : null);
+        }
+
+        int failed = analyze ? awaitAll(pending, workers) : 0;
+        System.out.println("Imported " + imported + " dreams for user " + userId
+                + (analyze ? " (" + (imported - failed) + " analyzed)" : ""));
+        if (parser.getRejectedCount() > 0) {
+            System.err.println("Skipped " + parser.getRejectedCount() + " malformed records:");
+            parser.getRejections().forEach(rejection -> System.err.println("  " + rejection));
+            if (parser.getRejectedCount() > parser.getRejections().size()) {
+                System.err.println("  ... and " + (parser.getRejectedCount() - parser.getRejections().size()) + " more");
+            }
+        }
+        return failed == 0 && parser.getRejectedCount() == 0 ? 0 : 1;
+    }
+
+    private BufferedReader openReader(Path source) throws IOException {
+        InputStream in = Files.newInputStream(source);
+        if (source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private int reanalyze() throws Exception {
+        int userId = getUserId();
+        DatabaseService databaseService = connect();
+        DreamAnalysisService analysisService = new DreamAnalysisService();
+        List<DreamEntry> dreams = databaseService.getAllDreams(userId);
+
+        ExecutorService workers = createWorkers();
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> pending = new ArrayList<>(dreams.size());
+        for (DreamEntry dream : dreams) {
+            pending.add(workers.submit(() -> {
+                analysisService.performFullAnalysis(dream);
+                int done = completed.incrementAndGet();
+                if (done % PROGRESS_INTERVAL == 0) {
+                    System.err.println("Analyzed " + done + "/" + dreams.size() + " dreams...");
+                }
+            }));
+        }
+
+        int failed = awaitAll(pending, workers);
+        System.out.println("Re-analyzed " + (dreams.size() - failed) + " of " + dreams.size()
+                + " dreams for user " + userId);
+        return failed == 0 ? 0 : 1;
+    }
+
+    private int printStatistics() throws Exception {
+        int userId = getUserId();
+        connect();
+        DreamStatistics stats = new DreamAnalyticsService().generateUserStatistics(userId);
+
+        System.out.println("User " + userId);
+        System.out.println("  Total dreams:        " + stats.getTotalDreams());
+        System.out.println("  This month / week:   " + stats.getDreamsThisMonth() + " / " + stats.getDreamsThisWeek());
+        System.out.printf("  Avg sleep quality:   %.1f/10%n", stats.getAverageSleepQuality());
+        System.out.printf("  Avg lucidity:        %.1f/5%n", stats.getAverageLucidity());
+        System.out.println("  Current streak:      " + stats.getCurrentStreak() + " days");
+        System.out.println("  Longest streak:      " + stats.getLongestDreamStreak() + " days");
+        System.out.println("  Most common emotion: " + stats.getMostCommonEmotion());
+        System.out.println("  Top symbols:         " + String.join(", ", stats.getTopSymbols()));
+        return 0;
+    }
+
+    private int exportDreams() throws Exception {
+        Path target = Path.of(requireArgument("output file"));
+        int userId = getUserId();
+        connect();
+
+        long exported = new DreamExportService().exportToFile(userId, target);
+        System.out.println("Exported " + exported + " dreams for user " + userId + " to " + target);
+        return 0;
+    }
+
+    private DatabaseService connect() throws Exception {
+        // Imports use COPY and the other commands read PostgreSQL directly
+        if (!"postgres".equals(DatabaseConfig.REPOSITORY_BACKEND)) {
+            throw new IllegalArgumentException("The CLI needs -Dlucidia.repository=postgres, not '"
+                    + DatabaseConfig.REPOSITORY_BACKEND + "'");
+        }
+        DatabaseService databaseService = DatabaseService.getInstance();
+        databaseService.initialize();
+        return databaseService;
+    }
+
+    private ExecutorService createWorkers() {
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("--parallelism must be at least 1");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "lucidia-cli-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Waits for every task and returns how many failed
+    private int awaitAll(List<Future<?>> pending, ExecutorService workers) throws InterruptedException {
+        int failed = 0;
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failed++;
+                System.err.println("Analysis failed: " + e.getCause().getMessage());
+            }
+        }
+        workers.shutdown();
+        return failed;
+    }
+
+    private int getUserId() {
+        return Integer.parseInt(options.getOrDefault("user", "1"));
+    }
+
+    private String requireArgument(String name) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return arguments.get(0);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: lucidia <command> [options]");
+        System.err.println("  import <file>     Bulk import a dreams.txt, .jsonl or .csv journal (optionally .gz)");
+        System.err.println("                    [--user N] [--format text|jsonl|csv] [--date yyyy-MM-dd]");
+        System.err.println("                    [--chunk-size N] [--analyze] [--parallelism N]");
+        System.err.println("                    [--strict] (fail on the first malformed record instead of skipping it)");
+        System.err.println("  reanalyze         Re-run analysis on every dream [--user N] [--parallelism N]");
+        System.err.println("  stats             Print dream statistics [--user N]");
+        System.err.println("  export <file>     Stream dreams and analyses to .jsonl or .csv, gzipped if .gz [--user N]");
+    }
+}
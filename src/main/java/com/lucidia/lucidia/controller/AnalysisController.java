@@ -1,20 +1,32 @@
 package com.lucidia.lucidia.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.*;
 import javafx.scene.text.*;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.stage.FileChooser;
 import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.AnalysisUpdate;
+import com.lucidia.lucidia.service.DreamExportService;
+import com.lucidia.lucidia.util.AppExecutors;
 
+import java.io.File;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class AnalysisController implements Initializable {
 
@@ -37,6 +49,8 @@ public class AnalysisController implements Initializable {
     @FXML private Button backButton;
 
     private AnalysisResult currentAnalysis;
+    // Set while an analysis is arriving stage by stage
+    private boolean streaming;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -49,11 +63,61 @@ public class AnalysisController implements Initializable {
     }
 
     public void setAnalysisResult(AnalysisResult analysis) {
+        this.streaming = false;
         this.currentAnalysis = analysis;
+        // The view is cached, so the date set at load time may belong to an earlier analysis
+        if (analysis != null && analysis.getAnalysisTimestamp() != null) {
+            analysisDateLabel.setText("✨ Analyzed " +
+                    analysis.getAnalysisTimestamp().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")));
+        }
         displayAnalysis();
     }
 
+    /**
+     * Shows one stage of an analysis still in progress, each section filling
+     * in as its stage arrives. The last stage shows the stored result, as
+     * {@link #setAnalysisResult} does. Stages after the first are ignored if
+     * the view opened midway, since earlier sections would be missing.
+     */
+    public void showStage(AnalysisUpdate update) {
+        switch (update.getStage()) {
+            case EMOTIONS -> {
+                streaming = true;
+                currentAnalysis = new AnalysisResult();
+                currentAnalysis.setEmotionBreakdown(update.getEmotions());
+                currentAnalysis.setSymbolsDetected(List.of());
+                analysisDateLabel.setText("✨ Analyzing...");
+                updateQuickInsights();
+                updateIntensityLabel();
+                displayEmotions();
+                symbolDictionaryContainer.getChildren().clear();
+                recommendationsFlow.getChildren().clear();
+                interpretationFlow.getChildren().clear();
+                createFlowingText(interpretationFlow, "Interpreting your dream...");
+            }
+            case SYMBOLS -> {
+                if (streaming) {
+                    currentAnalysis.setSymbolsDetected(update.getSymbols());
+                    updateQuickInsights();
+                    displaySymbols();
+                }
+            }
+            case INTERPRETATION -> {
+                if (streaming) {
+                    currentAnalysis.setInterpretationText(update.getInterpretation());
+                    displayInterpretation();
+                    displayRecommendations();
+                }
+            }
+            case PERSISTED -> {
+                streaming = false;
+                setAnalysisResult(update.getResult());
+            }
+        }
+    }
+
     public void displayAnalysis(AnalysisResult analysis) {
+        this.streaming = false;
         this.currentAnalysis = analysis;
         displayAnalysis();
     }
@@ -452,12 +516,63 @@ public class AnalysisController implements Initializable {
 
     @FXML
     private void handleExport() {
-        showAlert("Info", "📄 PDF export will be available in the next update!");
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Dream Journal");
+        fileChooser.setInitialFileName("lucidia-journal.jsonl");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("Compressed", "*.jsonl.gz", "*.csv.gz")
+        );
+
+        File file = fileChooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Streamed in the background; large journals can take a while. Not scoped:
+        // the export is what the user asked for, so it finishes even if they navigate away
+        exportButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return new DreamExportService().exportToFile(1, file.toPath());
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, AppExecutors.io()).whenCompleteAsync((exported, error) -> {
+            exportButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                cause.printStackTrace();
+                showAlert("Export Failed", "Could not export your journal: " + cause.getMessage());
+            } else {
+                showAlert("Export Complete", "📄 Exported " + exported + " dreams to " + file.getName());
+            }
+        }, AppExecutors.fx());
     }
 
     @FXML
     private void handleShare() {
-        showAlert("Info", "🔗 Anonymous sharing feature coming soon!");
+        if (currentAnalysis == null) {
+            showAlert("Info", "🔗 Analyze a dream first to share its insights.");
+            return;
+        }
+
+        // Only the analysis is shared: no dream text, ids or dates
+        Map<String, Object> shared = new LinkedHashMap<>();
+        shared.put("dominantEmotion", currentAnalysis.getDominantEmotion());
+        shared.put("emotionScore", currentAnalysis.getEmotionScore());
+        shared.put("symbols", currentAnalysis.getSymbolsDetected());
+        shared.put("interpretation", currentAnalysis.getInterpretationText());
+
+        try {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(shared));
+            Clipboard.getSystemClipboard().setContent(content);
+            showAlert("Shared", "🔗 Anonymous analysis copied to your clipboard!");
+        } catch (JsonProcessingException e) {
+            showAlert("Share Failed", "Could not prepare your analysis: " + e.getMessage());
+        }
     }
 
     @FXML
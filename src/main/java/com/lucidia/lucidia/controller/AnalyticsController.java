@@ -9,9 +9,13 @@ import javafx.collections.ObservableList;
 import com.lucidia.lucidia.service.DreamAnalyticsService;
 import com.lucidia.lucidia.model.DreamStatistics;
 import com.lucidia.lucidia.model.DreamInsight;
+import com.lucidia.lucidia.util.AppExecutors;
+import com.lucidia.lucidia.view.TimelineChart;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class AnalyticsController implements Initializable {
 
@@ -27,6 +31,7 @@ public class AnalyticsController implements Initializable {
 
     @FXML private PieChart emotionChart;
     @FXML private BarChart<String, Number> symbolChart;
+    @FXML private TimelineChart timelineChart;
 
     @FXML private ListView<String> insightsList;
     @FXML private ListView<String> topSymbolsList;
@@ -35,18 +40,27 @@ public class AnalyticsController implements Initializable {
 
     private DreamAnalyticsService analyticsService;
     private final int currentUserId = 1; // Default user ID
+    // Every load cancels the one before, so results of a superseded load are dropped
+    private final AppExecutors.Scope loadScope = AppExecutors.newScope("analytics");
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         analyticsService = new DreamAnalyticsService();
+        // Closing the dashboard stops its queries; refresh() starts them again
+        loadScope.cancelWhenHidden(refreshButton);
+        // No data yet: the view may be parsed at startup, long before it is shown
         setupCharts();
+    }
+
+    /** Loads the dashboard; called each time the cached view is shown. */
+    public void refresh() {
         loadAnalyticsData();
     }
 
     @FXML
     private void handleRefresh() {
-        loadAnalyticsData();
-        showAlert("Success", "Analytics dashboard refreshed!");
+        // Never completes if a later load supersedes this one
+        loadAnalyticsData().thenRunAsync(() -> showAlert("Success", "Analytics dashboard refreshed!"), AppExecutors.fx());
     }
 
     private void setupCharts() {
@@ -82,24 +96,68 @@ public class AnalyticsController implements Initializable {
         }
     }
 
-    private void loadAnalyticsData() {
-        try {
-            DreamStatistics stats = analyticsService.generateUserStatistics(currentUserId);
-            if (stats != null) {
-                updateStatisticsCards(stats);
-                updateCharts(stats);
-                updateInsights();
-                updateDetailedStats(stats);
-            } else {
-                // Initialize with sample data if stats is null
-                initializeWithSampleData();
-            }
-        } catch (Exception e) {
+    /**
+     * Loads the dashboard without blocking the FX thread. The statistics are
+     * computed once; the sections built from them (cards, emotion chart,
+     * symbol chart, insights, detailed stats) are then prepared in parallel
+     * and each is rendered as soon as it is ready. The timeline has its own
+     * query and loads alongside the statistics.
+     *
+     * @return completes once every section has been rendered
+     */
+    private CompletableFuture<Void> loadAnalyticsData() {
+        loadScope.cancel();
+        Executor fx = loadScope.fx();
+
+        CompletableFuture<DreamStatistics> statsFuture = loadScope.supply(AppExecutors.io(),
+                () -> analyticsService.generateUserStatistics(currentUserId));
+
+        CompletableFuture<Void> cards = statsFuture.thenAcceptAsync(stats -> {
+            if (stats != null) updateStatisticsCards(stats);
+        }, fx);
+
+        CompletableFuture<Void> emotions = statsFuture
+                .thenApplyAsync(this::buildEmotionData, AppExecutors.cpu())
+                .thenAcceptAsync(data -> {
+                    if (data != null) emotionChart.setData(data);
+                }, fx);
+
+        CompletableFuture<Void> symbols = statsFuture
+                .thenApplyAsync(this::buildSymbolSeries, AppExecutors.cpu())
+                .thenAcceptAsync(series -> {
+                    if (series != null) updateSymbolChart(series);
+                }, fx);
+
+        CompletableFuture<Void> insights = statsFuture
+                .thenApplyAsync(this::buildInsightItems, AppExecutors.cpu())
+                .thenAcceptAsync(this::updateInsights, fx);
+
+        CompletableFuture<Void> details = statsFuture.thenAcceptAsync(stats -> {
+            if (stats != null) updateDetailedStats(stats);
+        }, fx);
+
+        CompletableFuture<Void> timeline = loadScope
+                .supply(AppExecutors.io(), () -> TimelineChart.prepare(analyticsService.getDailyTimeline(currentUserId)))
+                .thenAcceptAsync(data -> {
+                    if (timelineChart != null) timelineChart.setData(data);
+                }, fx);
+
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(cards, emotions, symbols, insights, details, timeline)
+                .thenAcceptAsync(ignored -> {
+                    if (statsFuture.join() == null) {
+                        // Initialize with sample data if stats is null
+                        initializeWithSampleData();
+                    }
+                }, fx);
+        // A cancelled load has bumped the scope, so fx drops this for it
+        loaded.exceptionallyAsync(e -> {
             e.printStackTrace();
             showAlert("Error", "Failed to load analytics data: " + e.getMessage());
             // Initialize with sample data for demonstration
             initializeWithSampleData();
-        }
+            return null;
+        }, fx);
+        return loaded;
     }
 
     private void updateStatisticsCards(DreamStatistics stats) {
@@ -113,52 +171,61 @@ public class AnalyticsController implements Initializable {
         }
     }
 
-    private void updateCharts(DreamStatistics stats) {
-        try {
-            // Update emotion chart
-            ObservableList<PieChart.Data> emotionData = FXCollections.observableArrayList();
-            if (stats.getEmotionFrequency() != null && !stats.getEmotionFrequency().isEmpty()) {
-                stats.getEmotionFrequency().forEach((emotion, count) -> {
-                    if (count > 0) {
-                        emotionData.add(new PieChart.Data(emotion + " (" + count + ")", count));
-                    }
-                });
-            } else {
-                // Sample data if no real data available
-                emotionData.addAll(
-                        new PieChart.Data("Joy (3)", 3),
-                        new PieChart.Data("Peace (2)", 2),
-                        new PieChart.Data("Anxiety (1)", 1)
-                );
-            }
-            emotionChart.setData(emotionData);
+    // Off the FX thread: the chart data is not attached to the scene until it is set
+    private ObservableList<PieChart.Data> buildEmotionData(DreamStatistics stats) {
+        if (stats == null) {
+            return null;
+        }
+        ObservableList<PieChart.Data> emotionData = FXCollections.observableArrayList();
+        if (stats.getEmotionFrequency() != null && !stats.getEmotionFrequency().isEmpty()) {
+            stats.getEmotionFrequency().forEach((emotion, count) -> {
+                if (count > 0) {
+                    emotionData.add(new PieChart.Data(emotion + " (" + count + ")", count));
+                }
+            });
+        } else {
+            // Sample data if no real data available
+            emotionData.addAll(
+                    new PieChart.Data("Joy (3)", 3),
+                    new PieChart.Data("Peace (2)", 2),
+                    new PieChart.Data("Anxiety (1)", 1)
+            );
+        }
+        return emotionData;
+    }
+
+    private XYChart.Series<String, Number> buildSymbolSeries(DreamStatistics stats) {
+        if (stats == null) {
+            return null;
+        }
+        XYChart.Series<String, Number> symbolSeries = new XYChart.Series<>();
+        symbolSeries.setName("Symbol Frequency");
+
+        if (stats.getSymbolFrequency() != null && !stats.getSymbolFrequency().isEmpty()) {
+            // Get top 8 symbols
+            stats.getSymbolFrequency().entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(8)
+                    .forEach(entry -> {
+                        symbolSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
+                    });
+        } else {
+            // Sample data if no real data available
+            symbolSeries.getData().addAll(
+                    new XYChart.Data<>("Water", 5),
+                    new XYChart.Data<>("Flying", 3),
+                    new XYChart.Data<>("House", 2),
+                    new XYChart.Data<>("Car", 2),
+                    new XYChart.Data<>("School", 1)
+            );
+        }
+        return symbolSeries;
+    }
 
-            // Update symbol chart
+    private void updateSymbolChart(XYChart.Series<String, Number> symbolSeries) {
+        try {
             if (symbolChart != null) {
                 symbolChart.getData().clear();
-
-                XYChart.Series<String, Number> symbolSeries = new XYChart.Series<>();
-                symbolSeries.setName("Symbol Frequency");
-
-                if (stats.getSymbolFrequency() != null && !stats.getSymbolFrequency().isEmpty()) {
-                    // Get top 8 symbols
-                    stats.getSymbolFrequency().entrySet().stream()
-                            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                            .limit(8)
-                            .forEach(entry -> {
-                                symbolSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-                            });
-                } else {
-                    // Sample data if no real data available
-                    symbolSeries.getData().addAll(
-                            new XYChart.Data<>("Water", 5),
-                            new XYChart.Data<>("Flying", 3),
-                            new XYChart.Data<>("House", 2),
-                            new XYChart.Data<>("Car", 2),
-                            new XYChart.Data<>("School", 1)
-                    );
-                }
-
                 symbolChart.getData().add(symbolSeries);
             }
         } catch (Exception e) {
@@ -168,10 +235,13 @@ public class AnalyticsController implements Initializable {
         }
     }
 
-    private void updateInsights() {
+    // Reuses the loaded statistics rather than letting the service compute them again
+    private List<String> buildInsightItems(DreamStatistics stats) {
+        List<String> insightItems = new ArrayList<>();
         try {
-            List<DreamInsight> insights = analyticsService.generatePersonalizedInsights(currentUserId);
-            ObservableList<String> insightItems = FXCollections.observableArrayList();
+            List<DreamInsight> insights = stats != null
+                    ? analyticsService.generatePersonalizedInsights(currentUserId, stats)
+                    : null;
 
             if (insights != null && !insights.isEmpty()) {
                 for (DreamInsight insight : insights) {
@@ -180,12 +250,22 @@ public class AnalyticsController implements Initializable {
                 }
             } else {
                 // Sample insights if no real insights available
-                insightItems.addAll(
+                insightItems.addAll(List.of(
                         "💡 Start recording dreams regularly to unlock personalized insights",
                         "🌟 Try keeping a dream journal by your bed for better recall",
                         "📈 Your dream patterns will become clearer with more entries"
-                );
+                ));
             }
+        } catch (Exception e) {
+            System.err.println("Error updating insights: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return insightItems;
+    }
+
+    private void updateInsights(List<String> items) {
+        try {
+            ObservableList<String> insightItems = FXCollections.observableArrayList(items);
 
             if (insightsList != null) {
                 insightsList.setItems(insightItems);
@@ -5,11 +5,17 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.service.DreamSaveQueue;
 import com.lucidia.lucidia.service.DreamVisualizationService;
+import com.lucidia.lucidia.util.AppExecutors;
 
+import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class DreamJournalController implements Initializable {
@@ -35,6 +41,8 @@ public class DreamJournalController implements Initializable {
 
     // Service management
     private DreamVisualizationService currentService;
+    // Re-analyzing, editing the dream or closing the journal drops a pending analysis
+    private final AppExecutors.Scope analysisScope = AppExecutors.newScope("journal-analysis");
 
     // Emotion and symbol detection patterns
     private static final Map<String, Pattern> EMOTION_PATTERNS = createEmotionPatterns();
@@ -51,6 +59,15 @@ public class DreamJournalController implements Initializable {
         luciditySlider.valueProperty().addListener((obs, oldVal, newVal) ->
                 updateStatus("Lucidity Level: " + newVal.intValue() + "/5"));
 
+        dreamContent.textProperty().addListener((obs, oldVal, newVal) -> {
+            if (analysisProgress.isVisible()) {
+                analysisScope.cancel();
+                analysisProgress.setVisible(false);
+                updateStatus("Dream changed, analysis cancelled.");
+            }
+        });
+        analysisScope.cancelWhenHidden(dreamContent);
+
         // Initialize image generation UI
         imageGenerationProgress.setVisible(false);
         cancelGenerationButton.setVisible(false);
@@ -59,8 +76,29 @@ public class DreamJournalController implements Initializable {
 
     @FXML
     private void handleSave() {
-        // Implementation will be handled by MainController
-        updateStatus("Dream saved successfully!");
+        String text = dreamContent.getText().trim();
+        if (text.isEmpty()) {
+            updateStatus("Please describe your dream before saving.");
+            return;
+        }
+
+        DreamEntry dream = new DreamEntry(
+                1, // Default user ID
+                text,
+                dreamDate.getValue() != null ? dreamDate.getValue() : LocalDate.now(),
+                (int) sleepQualitySlider.getValue(),
+                (int) luciditySlider.getValue()
+        );
+
+        try {
+            // Acknowledged once it is on local disk; the database write follows in the background
+            DreamSaveQueue.getInstance().submit(dream).thenAccept(dreamId ->
+                    javafx.application.Platform.runLater(() -> updateStatus("Dream saved! (ID: " + dreamId + ")")));
+            updateStatus("Dream saved locally, syncing...");
+        } catch (IOException e) {
+            updateStatus("Could not save dream: " + e.getMessage());
+            e.printStackTrace();
+        }
     }
 
     @FXML
@@ -68,18 +106,12 @@ public class DreamJournalController implements Initializable {
         analysisProgress.setVisible(true);
         updateStatus("Analyzing dream...");
 
-        // Simulate analysis delay
-        new Thread(() -> {
-            try {
-                Thread.sleep(2000);
-                javafx.application.Platform.runLater(() -> {
-                    analysisProgress.setVisible(false);
-                    updateStatus("Analysis complete!");
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        // Simulate analysis delay; a timer, so no thread sits asleep for it
+        analysisScope.cancel();
+        CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS, analysisScope.fx()).execute(() -> {
+            analysisProgress.setVisible(false);
+            updateStatus("Analysis complete!");
+        });
     }
 
     @FXML
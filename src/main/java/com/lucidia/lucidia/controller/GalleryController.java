@@ -0,0 +1,177 @@
+package com.lucidia.lucidia.controller;
+
+import com.lucidia.lucidia.service.ThumbnailService;
+import com.lucidia.lucidia.util.AppExecutors;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Browses everything in {@code generated_images/}. The grid is a ListView of
+ * rows, so only the rows on screen have cells, and those cells are reused
+ * while scrolling. Thumbnails come from {@link ThumbnailService} and load in
+ * the background at their display size; a bounded cache keeps recently seen
+ * ones, so heap use does not grow with the number of images.
+ */
+public class GalleryController implements Initializable {
+    private static final double TILE_SIZE = ThumbnailService.THUMBNAIL_SIZE + 16;
+    private static final int THUMBNAIL_CACHE_SIZE = 200;
+    private static final double PREVIEW_SIZE = 800;
+
+    @FXML private ListView<List<Path>> galleryList;
+    @FXML private ImageView previewImage;
+    @FXML private Label previewLabel;
+    @FXML private Label galleryStatus;
+
+    private final ThumbnailService thumbnailService = ThumbnailService.getInstance();
+    // Cancelled when the gallery closes, so late thumbnails do not touch a hidden view
+    private final AppExecutors.Scope scope = AppExecutors.newScope("gallery");
+    // Only touched on the FX thread
+    private final Map<Path, Image> thumbnailCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Image> eldest) {
+            return size() > THUMBNAIL_CACHE_SIZE;
+        }
+    };
+    private List<Path> images = List.of();
+    private int columns;
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        scope.cancelWhenHidden(galleryList);
+        galleryList.setCellFactory(list -> new ThumbnailRowCell());
+        galleryList.widthProperty().addListener((observable, oldWidth, newWidth) -> layoutRows(false));
+        loadImages();
+    }
+
+    /** Rescans the image folder; called each time the cached view is shown again. */
+    public void refresh() {
+        loadImages();
+    }
+
+    @FXML
+    private void handleRefresh() {
+        loadImages();
+    }
+
+    private void loadImages() {
+        galleryStatus.setText("Loading your visualizations...");
+        thumbnailService.listImages().whenCompleteAsync((found, error) -> {
+            if (error != null) {
+                System.err.println("Could not list generated images: " + error.getMessage());
+                galleryStatus.setText("Could not read the image folder");
+                return;
+            }
+            images = found;
+            galleryStatus.setText(found.isEmpty()
+                    ? "No visualizations yet - generate one from the journal"
+                    : found.size() + " visualizations, newest first");
+            layoutRows(true);
+        }, scope.fx());
+    }
+
+    // Regroups the images into rows when the number of columns that fit changes
+    private void layoutRows(boolean force) {
+        int fitting = Math.max(1, (int) ((galleryList.getWidth() - 30) / TILE_SIZE));
+        if (!force && fitting == columns) {
+            return;
+        }
+        columns = fitting;
+        List<List<Path>> rows = new ArrayList<>((images.size() + columns - 1) / columns);
+        for (int start = 0; start < images.size(); start += columns) {
+            rows.add(images.subList(start, Math.min(images.size(), start + columns)));
+        }
+        galleryList.setItems(FXCollections.observableList(rows));
+    }
+
+    private void showPreview(Path image) {
+        previewImage.setImage(new Image(image.toUri().toString(), PREVIEW_SIZE, PREVIEW_SIZE, true, true, true));
+        previewLabel.setText(image.getFileName().toString());
+    }
+
+    private final class ThumbnailRowCell extends ListCell<List<Path>> {
+        private final HBox row = new HBox(8);
+        private final List<ImageView> views = new ArrayList<>();
+
+        ThumbnailRowCell() {
+            row.setPadding(new Insets(4));
+            setStyle("-fx-background-color: transparent;");
+        }
+
+        @Override
+        protected void updateItem(List<Path> item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setGraphic(null);
+                return;
+            }
+            while (views.size() < item.size()) {
+                addTile();
+            }
+            row.getChildren().clear();
+            for (int i = 0; i < item.size(); i++) {
+                ImageView view = views.get(i);
+                bind(view, item.get(i));
+                row.getChildren().add(view.getParent());
+            }
+            setGraphic(row);
+        }
+
+        private void addTile() {
+            ImageView view = new ImageView();
+            view.setFitWidth(ThumbnailService.THUMBNAIL_SIZE);
+            view.setFitHeight(ThumbnailService.THUMBNAIL_SIZE);
+            view.setPreserveRatio(true);
+            StackPane tile = new StackPane(view);
+            tile.setAlignment(Pos.CENTER);
+            tile.setPrefSize(TILE_SIZE, TILE_SIZE);
+            tile.setStyle("-fx-background-color: rgba(138,43,226,0.15); -fx-background-radius: 10; -fx-cursor: hand;");
+            tile.setOnMouseClicked(event -> {
+                if (view.getUserData() instanceof Path image) {
+                    showPreview(image);
+                }
+            });
+            views.add(view);
+        }
+
+        private void bind(ImageView view, Path image) {
+            // The cell may be reused for another row before the thumbnail arrives
+            view.setUserData(image);
+            Image cached = thumbnailCache.get(image);
+            view.setImage(cached);
+            if (cached != null) {
+                return;
+            }
+            thumbnailService.thumbnail(image).whenCompleteAsync((thumbnail, error) -> {
+                if (error instanceof CancellationException) {
+                    // Dropped while queued; the cell asks again when it next shows this image
+                    return;
+                }
+                if (error != null) {
+                    System.err.println("No thumbnail for " + image.getFileName() + ": " + error.getMessage());
+                    return;
+                }
+                Image loaded = thumbnailCache.computeIfAbsent(image, key -> new Image(
+                        thumbnail.toUri().toString(), ThumbnailService.THUMBNAIL_SIZE, ThumbnailService.THUMBNAIL_SIZE,
+                        true, true, true));
+                if (image.equals(view.getUserData())) {
+                    view.setImage(loaded);
+                }
+            }, scope.fx());
+        }
+    }
+}
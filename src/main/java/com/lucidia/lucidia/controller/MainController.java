@@ -14,6 +14,11 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 import com.lucidia.lucidia.model.DreamEntry;
 import com.lucidia.lucidia.model.DreamStatistics;
@@ -21,13 +26,17 @@ import com.lucidia.lucidia.service.DatabaseService;
 import com.lucidia.lucidia.service.NLPService;
 import com.lucidia.lucidia.service.DreamAnalysisService;
 import com.lucidia.lucidia.service.DreamAnalyticsService;
+import com.lucidia.lucidia.service.DreamSaveQueue;
+import com.lucidia.lucidia.service.LocalDreamStore;
+import com.lucidia.lucidia.service.SyncService;
+import com.lucidia.lucidia.service.DreamSearchIndex;
 import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.AnalysisUpdate;
 import com.lucidia.lucidia.service.DreamVisualizationService;
-
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
+import com.lucidia.lucidia.util.AppExecutors;
+import com.lucidia.lucidia.util.FxSubscriber;
+import com.lucidia.lucidia.util.StartupTimer;
+import com.lucidia.lucidia.util.ViewRegistry;
 
 public class MainController implements Initializable {
 
@@ -66,17 +75,22 @@ public class MainController implements Initializable {
     @FXML private Label previewLucidity;
     @FXML private Label previewStreak;
 
-    // Services
+    // Services; the NLP and visualization services are created on first use
     private DatabaseService databaseService;
     private NLPService nlpService;
     private DreamVisualizationService visualizationService;
+    // Most recent analysis, shown in detail by View Current Analysis
+    private AnalysisResult lastAnalysis;
+
+    // Each scope holds one kind of request; a newer request cancels the older one
+    private final AppExecutors.Scope analysisScope = AppExecutors.newScope("main-analysis");
+    private final AppExecutors.Scope historyScope = AppExecutors.newScope("main-history");
+    private final AppExecutors.Scope previewScope = AppExecutors.newScope("main-preview");
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Initialize services
         databaseService = DatabaseService.getInstance();
-        nlpService = new NLPService();
-        visualizationService = new DreamVisualizationService();
 
         // Set default date to today
         dreamDatePicker.setValue(LocalDate.now());
@@ -117,10 +131,30 @@ public class MainController implements Initializable {
         updateStatus("✨ Ready to capture dreams...");
     }
 
-    private void initializeAnalyticsPreview() {
-        // Update preview stats immediately
-        updateAnalyticsPreview();
+    /**
+     * Fills the dream history and analytics preview once the window is up.
+     * The history comes from the local store and needs no database; the
+     * preview waits for {@code databaseReady}.
+     *
+     * @return completes once both have been loaded, failed or been superseded
+     */
+    public CompletableFuture<Void> loadInitialData(CompletableFuture<?> databaseReady) {
+        String searchText = searchField.getText();
+        String filter = filterComboBox.getValue();
+        // A search typed before this arrives cancels it, as its results are newer
+        CompletableFuture<List<DreamEntry>> history = historyScope.supply(AppExecutors.io(),
+                () -> StartupTimer.time("history", () -> LocalDreamStore.getInstance().getDreamEntries(searchText, filter, 1)));
+        history.thenAcceptAsync(this::showDreamHistory, historyScope.fx());
+
+        CompletableFuture<DreamStatistics> preview = databaseReady.handle((ready, error) -> null)
+                .thenCompose(ignored -> previewScope.supply(AppExecutors.io(), () -> StartupTimer.time("analytics preview",
+                        () -> new DreamAnalyticsService().generateUserStatistics(1))));
+        showAnalyticsPreview(preview);
+
+        return CompletableFuture.allOf(history, preview).handle((done, error) -> null);
+    }
 
+    private void initializeAnalyticsPreview() {
         // Set up listener for when analytics tab is selected
         if (analyticsTab != null) {
             analyticsTab.selectedProperty().addListener((observable, oldValue, newValue) -> {
@@ -132,10 +166,27 @@ public class MainController implements Initializable {
     }
 
     private void updateAnalyticsPreview() {
-        try {
-            DreamAnalyticsService analyticsService = new DreamAnalyticsService();
-            DreamStatistics stats = analyticsService.generateUserStatistics(1);
+        previewScope.cancel();
+        showAnalyticsPreview(previewScope.supply(AppExecutors.io(),
+                () -> new DreamAnalyticsService().generateUserStatistics(1)));
+    }
 
+    // Statistics are computed in the background; the labels are set on the FX thread
+    private void showAnalyticsPreview(CompletableFuture<DreamStatistics> statistics) {
+        statistics.whenCompleteAsync((stats, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (cause != null) {
+                System.err.println("Analytics preview failed: " + cause.getMessage());
+            }
+            showAnalyticsPreview(stats);
+        }, previewScope.fx());
+    }
+
+    private void showAnalyticsPreview(DreamStatistics stats) {
+        if (stats != null) {
             if (previewTotalDreams != null) {
                 previewTotalDreams.setText(String.valueOf(stats.getTotalDreams()));
             }
@@ -148,7 +199,7 @@ public class MainController implements Initializable {
             if (previewStreak != null) {
                 previewStreak.setText(String.valueOf(stats.getCurrentStreak()));
             }
-        } catch (Exception e) {
+        } else {
             // Set default values if analytics service fails
             if (previewTotalDreams != null) previewTotalDreams.setText("0");
             if (previewSleepQuality != null) previewSleepQuality.setText("0.0");
@@ -162,6 +213,7 @@ public class MainController implements Initializable {
         dreamTextArea.textProperty().addListener((observable, oldValue, newValue) -> {
             updateTextAreaSize(dreamTextArea, newValue);
             updateWordCount(newValue);
+            cancelAnalysis("✏️ Dream changed - analysis cancelled.");
         });
 
         // Analysis result area auto-resize behavior
@@ -275,8 +327,8 @@ public class MainController implements Initializable {
             refreshDreamHistory();
         });
 
-        // Load initial dream history
-        refreshDreamHistory();
+        // The first load happens in loadInitialData; reload whenever a sync brings in changes
+        SyncService.getInstance().addListener(() -> Platform.runLater(this::refreshDreamHistory));
     }
 
     // ===== EVENT HANDLERS =====
@@ -298,12 +350,16 @@ public class MainController implements Initializable {
                     luciditySpinner.getValue()
             );
 
-            int dreamId = databaseService.saveDreamEntry(dream);
-            updateStatus("💾 Dream saved successfully! (ID: " + dreamId + ")");
-            refreshDreamHistory();
+            // Durable on local disk once submit returns; the database write happens in the background
+            DreamSaveQueue.getInstance().submit(dream).thenAccept(dreamId -> Platform.runLater(() -> {
+                updateStatus("💾 Dream saved successfully! (ID: " + dreamId + ")");
+                refreshDreamHistory();
 
-            // Update analytics preview after saving a new dream
-            updateAnalyticsPreview();
+                // Update analytics preview after saving a new dream
+                updateAnalyticsPreview();
+            }));
+            updateStatus("💾 Dream saved locally, syncing...");
+            refreshDreamHistory();
 
         } catch (Exception e) {
             showAlert("Error", "Failed to save dream: " + e.getMessage());
@@ -333,38 +389,47 @@ public class MainController implements Initializable {
                     luciditySpinner.getValue()
             );
 
-            // Run analysis in background thread
-            new Thread(() -> {
-                try {
-                    // Use the advanced analysis service
-                    DreamAnalysisService analysisService = new DreamAnalysisService();
-                    AnalysisResult result = analysisService.performFullAnalysis(dreamEntry);
-
-                    // Update UI on JavaFX thread
-                    Platform.runLater(() -> {
-                        analysisResultArea.setText(result.getInterpretationText());
-                        analysisProgress.setVisible(false);
-                        updateStatus("✨ Analysis complete! Insights ready.");
-
-                        // Auto-resize the analysis result area
-                        updateTextAreaSize(analysisResultArea, result.getInterpretationText());
-
-                        // Refresh history to show the newly saved dream
-                        refreshDreamHistory();
-
-                        // Update analytics preview
-                        updateAnalyticsPreview();
-                    });
-
-                } catch (Exception e) {
-                    Platform.runLater(() -> {
-                        analysisProgress.setVisible(false);
-                        showAlert("Analysis Error", "Failed to analyze dream: " + e.getMessage());
+            // Run analysis in the background; a newer analysis replaces this one
+            analysisScope.cancel();
+            Executor fx = analysisScope.fx();
+            FxSubscriber<AnalysisUpdate> stages = new FxSubscriber<>(fx, this::showAnalysisStage);
+            analysisScope.supply(AppExecutors.nlp(), () -> {
+                // Use the advanced analysis service; each stage is shown as soon as it is ready
+                DreamAnalysisService analysisService = new DreamAnalysisService();
+                AnalysisResult result = analysisService.performFullAnalysis(dreamEntry, stages);
+                return Map.entry(result, formatSimilarDreams(dreamEntry));
+            })
+            // The final render waits for the stage stream, so no stage lands on top of it;
+            // a failed analysis is shown at once
+            .thenCombine(stages.completion(), (analysis, streamed) -> analysis)
+            .whenCompleteAsync((analysis, error) -> {
+                analysisProgress.setVisible(false);
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (!(cause instanceof CancellationException)) {
+                        // Drop any stages of the failed analysis still on their way
+                        analysisScope.cancel();
+                        showAlert("Analysis Error", "Failed to analyze dream: " + cause.getMessage());
                         updateStatus("❌ Analysis failed.");
-                        e.printStackTrace();
-                    });
+                        cause.printStackTrace();
+                    }
+                    return;
                 }
-            }).start();
+
+                AnalysisResult result = analysis.getKey();
+                lastAnalysis = result;
+                analysisResultArea.setText(result.getInterpretationText() + analysis.getValue());
+                updateStatus("✨ Analysis complete! Insights ready.");
+
+                // Auto-resize the analysis result area
+                updateTextAreaSize(analysisResultArea, result.getInterpretationText());
+
+                // Refresh history to show the newly saved dream
+                refreshDreamHistory();
+
+                // Update analytics preview
+                updateAnalyticsPreview();
+            }, fx);
 
         } catch (Exception e) {
             analysisProgress.setVisible(false);
@@ -422,24 +487,21 @@ public class MainController implements Initializable {
                 if (parts.length >= 2) {
                     int dreamId = Integer.parseInt(parts[0]);
 
-                    // Find the corresponding dream
-                    List<DreamEntry> dreams = databaseService.getAllDreams(1);
-                    for (DreamEntry dream : dreams) {
-                        if (dream.getId() == dreamId) {
-                            // Load the dream into the form
-                            dreamTextArea.setText(dream.getDreamText());
-                            dreamDatePicker.setValue(dream.getDreamDate());
-                            sleepQualitySpinner.getValueFactory().setValue(dream.getSleepQuality());
-                            luciditySpinner.getValueFactory().setValue(dream.getLucidityLevel());
-
-                            // Update text area size
-                            updateTextAreaSize(dreamTextArea, dream.getDreamText());
-
-                            // Switch to the journal tab
-                            mainTabPane.getSelectionModel().select(dreamJournalTab);
-                            updateStatus("📖 Dream loaded from history!");
-                            break;
-                        }
+                    // Find the corresponding dream in the local store
+                    DreamEntry dream = LocalDreamStore.getInstance().getDreamEntry(dreamId);
+                    if (dream != null) {
+                        // Load the dream into the form
+                        dreamTextArea.setText(dream.getDreamText());
+                        dreamDatePicker.setValue(dream.getDreamDate());
+                        sleepQualitySpinner.getValueFactory().setValue(dream.getSleepQuality());
+                        luciditySpinner.getValueFactory().setValue(dream.getLucidityLevel());
+
+                        // Update text area size
+                        updateTextAreaSize(dreamTextArea, dream.getDreamText());
+
+                        // Switch to the journal tab
+                        mainTabPane.getSelectionModel().select(dreamJournalTab);
+                        updateStatus("📖 Dream loaded from history!");
                     }
                 }
             } catch (Exception e) {
@@ -457,6 +519,13 @@ public class MainController implements Initializable {
                 return;
             }
 
+            if (nlpService == null) {
+                nlpService = new NLPService();
+            }
+            if (visualizationService == null) {
+                visualizationService = new DreamVisualizationService();
+            }
+
             // Get analysis results
             Map<String, Double> emotions = nlpService.analyzeEmotion(dreamText);
             List<String> symbols = nlpService.extractSymbols(dreamText);
@@ -542,6 +611,16 @@ public class MainController implements Initializable {
 
     @FXML
     private void handleViewAnalysis() {
+        if (lastAnalysis != null) {
+            try {
+                ViewRegistry.show(ViewRegistry.View.ANALYSIS,
+                        (AnalysisController controller) -> controller.setAnalysisResult(lastAnalysis));
+                updateStatus("📊 Viewing current analysis results");
+                return;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
         if (!analysisResultArea.getText().isEmpty()) {
             mainTabPane.getSelectionModel().select(dreamJournalTab);
             updateStatus("📊 Viewing current analysis results");
@@ -553,37 +632,8 @@ public class MainController implements Initializable {
     @FXML
     private void handleShowAnalytics() {
         try {
-            // Try to load the analytics dashboard
-            URL analyticsUrl = getClass().getResource("/fxml/analytics-dashboard.fxml");
-            if (analyticsUrl == null) {
-                showAlert("Feature Not Available",
-                        "The analytics dashboard is not available yet. This feature will be available in the next update.\n\n" +
-                                "In the meantime, you can view your analytics preview in the Analytics tab.");
-                return;
-            }
-
-            FXMLLoader loader = new FXMLLoader(analyticsUrl);
-            Parent analyticsRoot = loader.load();
-
-            Stage analyticsStage = new Stage();
-            analyticsStage.setTitle("Lucidia - Dream Analytics Dashboard");
-            analyticsStage.setScene(new Scene(analyticsRoot, 1200, 800));
-            analyticsStage.setMinWidth(1000);
-            analyticsStage.setMinHeight(700);
-
-            // Add custom styles if available
-            try {
-                URL cssUrl = getClass().getResource("/css/analytics.css");
-                if (cssUrl != null) {
-                    analyticsStage.getScene().getStylesheets().add(cssUrl.toExternalForm());
-                }
-            } catch (Exception e) {
-                // CSS not available, continue without it
-                System.out.println("Analytics CSS not available: " + e.getMessage());
-            }
-
-            analyticsStage.show();
-
+            // Parsed in the background at startup; each visit only reloads the data
+            ViewRegistry.show(ViewRegistry.View.ANALYTICS, AnalyticsController::refresh);
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Navigation Error",
@@ -592,6 +642,16 @@ public class MainController implements Initializable {
         }
     }
 
+    @FXML
+    private void handleShowGallery() {
+        try {
+            ViewRegistry.show(ViewRegistry.View.GALLERY, GalleryController::refresh);
+        } catch (Exception e) {
+            e.printStackTrace();
+            showAlert("Navigation Error", "Could not open the gallery: " + e.getMessage());
+        }
+    }
+
     @FXML
     private void handleExit() {
         // Cancel any running services before exit
@@ -606,6 +666,11 @@ public class MainController implements Initializable {
         alert.setContentText("Any unsaved dreams will be lost.");
 
         if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+            // Give queued saves a moment to reach the database; the rest replay on next start
+            DreamSaveQueue.getInstance().shutdown(2000);
+            SyncService.getInstance().shutdown();
+            // Cancels every screen's work, waiting briefly for what is already running
+            AppExecutors.shutdown(1000);
             System.exit(0);
         }
     }
@@ -638,33 +703,100 @@ public class MainController implements Initializable {
     }
 
     /**
-     * Load dream history from database
+     * Show one stage of the running analysis here, and in the analysis view if it is open
+     */
+    private void showAnalysisStage(AnalysisUpdate update) {
+        switch (update.getStage()) {
+            case EMOTIONS -> {
+                String emotions = update.getEmotions().entrySet().stream()
+                        .filter(entry -> entry.getValue() > 0)
+                        .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                        .limit(3)
+                        .map(entry -> String.format("%s %.0f%%", entry.getKey(), entry.getValue() * 100))
+                        .collect(Collectors.joining(" · "));
+                analysisResultArea.setText("🧠 Emotions: " + (emotions.isEmpty() ? "neutral" : emotions) + "\n");
+                updateStatus("🔮 Emotions read, looking for symbols...");
+            }
+            case SYMBOLS -> {
+                analysisResultArea.appendText("🔸 Symbols: "
+                        + (update.getSymbols().isEmpty() ? "none found" : String.join(", ", update.getSymbols())) + "\n");
+                updateStatus("🔮 Symbols found, interpreting...");
+            }
+            case INTERPRETATION -> {
+                analysisResultArea.setText(update.getInterpretation());
+                updateStatus("💾 Interpretation ready, saving...");
+            }
+            case PERSISTED -> lastAnalysis = update.getResult();
+        }
+        ViewRegistry.ifShowing(ViewRegistry.View.ANALYSIS, (AnalysisController controller) -> controller.showStage(update));
+    }
+
+    /**
+     * Stop an analysis still running, so its result does not replace what the user is doing now
+     */
+    private void cancelAnalysis(String status) {
+        if (analysisProgress.isVisible()) {
+            analysisScope.cancel();
+            analysisProgress.setVisible(false);
+            updateStatus(status);
+        }
+    }
+
+    /**
+     * Build the "similar dreams" section shown under an analysis
+     */
+    private String formatSimilarDreams(DreamEntry dream) {
+        try {
+            List<DreamSearchIndex.SimilarDream> similar = DreamSearchIndex.getInstance().findSimilarDreams(dream, 3);
+            if (similar.isEmpty()) {
+                return "";
+            }
+
+            StringBuilder section = new StringBuilder("\n🔁 SIMILAR DREAMS\n");
+            section.append("=".repeat(40)).append("\n");
+            for (DreamSearchIndex.SimilarDream match : similar) {
+                section.append("• ").append(match.getDreamDate())
+                        .append(" - ").append(match.getPreview()).append("\n");
+            }
+            return section.toString();
+        } catch (Exception e) {
+            System.err.println("Similar dream lookup failed: " + e.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * Load dream history from the local store
      */
     private void refreshDreamHistory() {
+        // Anything still loading was asked for before this
+        historyScope.cancel();
         try {
             String searchText = searchField.getText();
             String filter = filterComboBox.getValue();
 
-            List<DreamEntry> dreams = databaseService.getDreamEntries(searchText, filter, 1);
-
-            // Format dreams for display: "ID - Date - Sleep Quality/Lucidity - Preview"
-            dreamHistoryList.setItems(FXCollections.observableArrayList(
-                    dreams.stream()
-                            .map(dream -> String.format("%d - %s - 😴%d/10 🌟%d/5 - %s",
-                                    dream.getId(),
-                                    dream.getDreamDate().toString(),
-                                    dream.getSleepQuality(),
-                                    dream.getLucidityLevel(),
-                                    dream.getDreamText().length() > 50 ?
-                                            dream.getDreamText().substring(0, 50) + "..." :
-                                            dream.getDreamText()))
-                            .toList()
-            ));
+            showDreamHistory(LocalDreamStore.getInstance().getDreamEntries(searchText, filter, 1));
         } catch (Exception e) {
             showAlert("Error", "Failed to load dream history: " + e.getMessage());
         }
     }
 
+    private void showDreamHistory(List<DreamEntry> dreams) {
+        // Format dreams for display: "ID - Date - Sleep Quality/Lucidity - Preview"
+        dreamHistoryList.setItems(FXCollections.observableArrayList(
+                dreams.stream()
+                        .map(dream -> String.format("%d - %s - 😴%d/10 🌟%d/5 - %s",
+                                dream.getId(),
+                                dream.getDreamDate().toString(),
+                                dream.getSleepQuality(),
+                                dream.getLucidityLevel(),
+                                dream.getDreamText().length() > 50 ?
+                                        dream.getDreamText().substring(0, 50) + "..." :
+                                        dream.getDreamText()))
+                        .toList()
+        ));
+    }
+
     /**
      * Display alert dialog
      */
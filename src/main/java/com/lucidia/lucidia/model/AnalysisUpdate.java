@@ -0,0 +1,58 @@
+package com.lucidia.lucidia.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One stage of an analysis in progress, published as soon as it is ready.
+ * Each update carries only what its stage produced; the last one carries the
+ * stored {@link AnalysisResult}.
+ */
+public class AnalysisUpdate {
+
+    public enum Stage {
+        EMOTIONS, SYMBOLS, INTERPRETATION, PERSISTED
+    }
+
+    private final Stage stage;
+    private final Map<String, Double> emotions;
+    private final List<String> symbols;
+    private final String interpretation;
+    private final AnalysisResult result;
+
+    private AnalysisUpdate(Stage stage, Map<String, Double> emotions, List<String> symbols,
+                           String interpretation, AnalysisResult result) {
+        this.stage = stage;
+        this.emotions = emotions;
+        this.symbols = symbols;
+        this.interpretation = interpretation;
+        this.result = result;
+    }
+
+    public static AnalysisUpdate emotions(Map<String, Double> emotions) {
+        return new AnalysisUpdate(Stage.EMOTIONS, emotions, null, null, null);
+    }
+
+    public static AnalysisUpdate symbols(List<String> symbols) {
+        return new AnalysisUpdate(Stage.SYMBOLS, null, symbols, null, null);
+    }
+
+    public static AnalysisUpdate interpretation(String interpretation) {
+        return new AnalysisUpdate(Stage.INTERPRETATION, null, null, interpretation, null);
+    }
+
+    public static AnalysisUpdate persisted(AnalysisResult result) {
+        return new AnalysisUpdate(Stage.PERSISTED, null, null, null, result);
+    }
+
+    public Stage getStage() { return stage; }
+
+    public Map<String, Double> getEmotions() { return emotions; }
+
+    public List<String> getSymbols() { return symbols; }
+
+    public String getInterpretation() { return interpretation; }
+
+    /** The stored result, with its dream id; only set on {@link Stage#PERSISTED}. */
+    public AnalysisResult getResult() { return result; }
+}
@@ -0,0 +1,36 @@
+package com.lucidia.lucidia.model;
+
+import java.time.LocalDate;
+
+/** One journal day: how many dreams were recorded and their average ratings. */
+public class DailyDreamSummary {
+    private LocalDate date;
+    private int dreamCount;
+    private Double averageSleepQuality;
+    private Double averageEmotionScore;
+
+    // Constructors
+    public DailyDreamSummary() {}
+
+    public DailyDreamSummary(LocalDate date, int dreamCount, Double averageSleepQuality, Double averageEmotionScore) {
+        this.date = date;
+        this.dreamCount = dreamCount;
+        this.averageSleepQuality = averageSleepQuality;
+        this.averageEmotionScore = averageEmotionScore;
+    }
+
+    // Getters and Setters
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int getDreamCount() { return dreamCount; }
+    public void setDreamCount(int dreamCount) { this.dreamCount = dreamCount; }
+
+    /** Null when none of the day's dreams has a sleep rating. */
+    public Double getAverageSleepQuality() { return averageSleepQuality; }
+    public void setAverageSleepQuality(Double averageSleepQuality) { this.averageSleepQuality = averageSleepQuality; }
+
+    /** Null when none of the day's dreams has been analyzed. */
+    public Double getAverageEmotionScore() { return averageEmotionScore; }
+    public void setAverageEmotionScore(Double averageEmotionScore) { this.averageEmotionScore = averageEmotionScore; }
+}
@@ -0,0 +1,71 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * One page of a user's analysis history, newest first, with the cursor for
+ * the page after it. Paging is by key rather than offset: the cursor is the
+ * timestamp and id of the last analysis on the page, so fetching page n costs
+ * the same as fetching page one.
+ */
+public class AnalysisPage {
+    private final List<AnalysisResult> items;
+    private final Cursor nextCursor;
+
+    public AnalysisPage(List<AnalysisResult> items, Cursor nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AnalysisResult> getItems() { return items; }
+
+    /** Cursor for the following page, or null when this is the last one. */
+    public Cursor getNextCursor() { return nextCursor; }
+
+    /** Position in the history; analyses strictly older than it come next. */
+    public static final class Cursor {
+        private final LocalDateTime timestamp;
+        private final int id;
+
+        public Cursor(LocalDateTime timestamp, int id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public static Cursor after(AnalysisResult last) {
+            return new Cursor(last.getAnalysisTimestamp(), last.getId());
+        }
+
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public int getId() { return id; }
+
+        /** Whether an analysis sorts after this cursor in newest-first order. */
+        public boolean precedes(AnalysisResult analysis) {
+            int byTime = analysis.getAnalysisTimestamp().compareTo(timestamp);
+            return byTime < 0 || (byTime == 0 && analysis.getId() < id);
+        }
+
+        /** Opaque text form for clients, e.g. {@code 2026-10-19T02:07:04.126390_55071}. */
+        @Override
+        public String toString() {
+            return timestamp + "_" + id;
+        }
+
+        public static Cursor parse(String value) {
+            int separator = value.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid history cursor: " + value);
+            }
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                        Integer.parseInt(value.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid history cursor: " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+
+import java.io.IOException;
+
+/** Receives streamed analyses one at a time, typically writing each one out. */
+@FunctionalInterface
+public interface AnalysisSink {
+    void accept(AnalysisResult result) throws IOException;
+}
@@ -0,0 +1,310 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache in front of another repository for single-dream reads:
+ * {@link #getDream}, {@link #dreamExists} and {@link #getLatestAnalysis}.
+ * Entries are grouped per user, each group is a bounded LRU, and the least
+ * recently used user's group goes first once too many users are cached.
+ * Writes made through this repository update or evict the affected entries,
+ * writes reported as {@link DreamChangeListener} events evict them, and
+ * entries older than the time-to-live are reloaded, which bounds how long a
+ * change made by another process goes unseen. List queries and aggregates
+ * always go to the delegate.
+ */
+public class CachingDreamRepository implements DreamRepository, DreamChangeListener {
+    private final DreamRepository delegate;
+    private final int maxDreamsPerUser;
+    private final long ttlNanos;
+    private final Map<Integer, Map<Integer, CachedDream>> users;
+    // Dream id -> owning user, kept in step with the per-user maps
+    private final Map<Integer, Integer> dreamOwners = new HashMap<>();
+    // Bumped by every eviction, so a read that raced one does not put back what it evicted
+    private long evictions;
+    private long hits;
+    private long misses;
+
+    public CachingDreamRepository(DreamRepository delegate, int maxUsers, int maxDreamsPerUser, long ttlMillis) {
+        this.delegate = delegate;
+        this.maxDreamsPerUser = maxDreamsPerUser;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.users = new LinkedHashMap<>(maxUsers * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Map<Integer, CachedDream>> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                eldest.getValue().keySet().forEach(dreamOwners::remove);
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public int saveDream(DreamEntry dream) throws SQLException {
+        int id = delegate.saveDream(dream);
+        synchronized (this) {
+            // A new dream has no analysis yet, so that is known without asking
+            CachedDream cached = put(InMemoryDreamRepository.copyOf(dream));
+            cached.setLatestAnalysis(null);
+        }
+        return id;
+    }
+
+    @Override
+    public DreamEntry getDream(int dreamId) throws SQLException {
+        long evictionsBefore;
+        synchronized (this) {
+            CachedDream cached = lookup(dreamId);
+            if (cached != null) {
+                return InMemoryDreamRepository.copyOf(cached.dream);
+            }
+            evictionsBefore = evictions;
+        }
+        DreamEntry dream = delegate.getDream(dreamId);
+        synchronized (this) {
+            // A delete meanwhile may have evicted this very dream; it is not worth finding out which
+            if (dream != null && evictions == evictionsBefore && peek(dreamId) == null) {
+                put(InMemoryDreamRepository.copyOf(dream));
+            }
+        }
+        return dream;
+    }
+
+    @Override
+    public boolean dreamExists(int dreamId) throws SQLException {
+        // A miss loads the whole row: the same round trip as an existence check, and it warms the cache
+        return getDream(dreamId) != null;
+    }
+
+    @Override
+    public AnalysisResult getLatestAnalysis(int dreamId) throws SQLException {
+        CachedDream cached;
+        long version;
+        synchronized (this) {
+            cached = lookup(dreamId);
+            if (cached != null && cached.latestAnalysisLoaded) {
+                return cached.latestAnalysis != null ? InMemoryDreamRepository.copyOf(cached.latestAnalysis) : null;
+            }
+            version = cached != null ? cached.version : 0;
+        }
+        AnalysisResult latest = delegate.getLatestAnalysis(dreamId);
+        synchronized (this) {
+            // Only if no save replaced or evicted the entry while the query ran; it may have read the older row
+            if (cached != null && peek(dreamId) == cached && cached.version == version) {
+                cached.setLatestAnalysis(latest != null ? InMemoryDreamRepository.copyOf(latest) : null);
+            }
+        }
+        return latest;
+    }
+
+    @Override
+    public List<DreamEntry> getDreams(int userId, String searchText, String filter) throws SQLException {
+        return delegate.getDreams(userId, searchText, filter);
+    }
+
+    @Override
+    public List<DreamEntry> getDreamsAfter(int userId, int afterId) throws SQLException {
+        return delegate.getDreamsAfter(userId, afterId);
+    }
+
+    @Override
+    public boolean deleteDream(int dreamId) throws SQLException {
+        try {
+            return delegate.deleteDream(dreamId);
+        } finally {
+            // Evict even when the delete failed, since the outcome is unknown
+            invalidate(dreamId);
+        }
+    }
+
+    @Override
+    public void saveAnalysis(AnalysisResult result) throws SQLException {
+        try {
+            delegate.saveAnalysis(result);
+        } catch (SQLException e) {
+            // Most likely the dream is gone; do not keep answering that it exists
+            invalidate(result.getDreamId());
+            throw e;
+        }
+        synchronized (this) {
+            CachedDream cached = peek(result.getDreamId());
+            if (cached != null) {
+                cached.setLatestAnalysis(InMemoryDreamRepository.copyOf(result));
+            }
+        }
+    }
+
+    @Override
+    public void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        delegate.saveDreamWithAnalysis(dream, result);
+        synchronized (this) {
+            CachedDream cached = put(InMemoryDreamRepository.copyOf(dream));
+            cached.setLatestAnalysis(InMemoryDreamRepository.copyOf(result));
+        }
+    }
+
+    @Override
+    public List<AnalysisResult> getAnalysisHistory(int userId) throws SQLException {
+        return delegate.getAnalysisHistory(userId);
+    }
+
+    @Override
+    public AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                               boolean summaryOnly) throws SQLException {
+        return delegate.getAnalysisHistoryPage(userId, after, limit, summaryOnly);
+    }
+
+    @Override
+    public void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException {
+        delegate.streamAnalysisHistory(userId, summaryOnly, sink);
+    }
+
+    @Override
+    public List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) throws SQLException {
+        return delegate.getLatestAnalyses(userId, afterAnalysisId);
+    }
+
+    @Override
+    public List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) throws SQLException {
+        return delegate.findDreamIdsBySymbols(userId, symbols, matchAll);
+    }
+
+    @Override
+    public DreamStatistics getDreamAggregates(int userId, LocalDate today) throws SQLException {
+        return delegate.getDreamAggregates(userId, today);
+    }
+
+    @Override
+    public List<DailyDreamSummary> getDailyTimeline(int userId) throws SQLException {
+        return delegate.getDailyTimeline(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedEmotionFrequency(int userId) throws SQLException {
+        return delegate.getAnalyzedEmotionFrequency(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedSymbolFrequency(int userId) throws SQLException {
+        return delegate.getAnalyzedSymbolFrequency(userId);
+    }
+
+    @Override
+    public List<String> getUnanalyzedDreamTexts(int userId) throws SQLException {
+        return delegate.getUnanalyzedDreamTexts(userId);
+    }
+
+    @Override
+    public void onDreamDeleted(int dreamId) {
+        invalidate(dreamId);
+    }
+
+    @Override
+    public synchronized void onAnalysisSaved(AnalysisResult result) {
+        CachedDream cached = peek(result.getDreamId());
+        // Saves made through this repository have already updated the entry
+        if (cached != null && (cached.latestAnalysis == null || cached.latestAnalysis.getId() != result.getId())) {
+            invalidate(result.getDreamId());
+        }
+    }
+
+    @Override
+    public void onUserChanged(int userId) {
+        invalidateUser(userId);
+    }
+
+    /** Drops one dream, e.g. after it was changed outside this repository. */
+    public synchronized void invalidate(int dreamId) {
+        evictions++;
+        Integer userId = dreamOwners.remove(dreamId);
+        if (userId != null) {
+            Map<Integer, CachedDream> dreams = users.get(userId);
+            if (dreams != null) {
+                dreams.remove(dreamId);
+            }
+        }
+    }
+
+    /** Drops everything cached for a user, e.g. after a bulk import. */
+    public synchronized void invalidateUser(int userId) {
+        evictions++;
+        Map<Integer, CachedDream> removed = users.remove(userId);
+        if (removed != null) {
+            removed.keySet().forEach(dreamOwners::remove);
+        }
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    // Counts the access, refreshes both LRU orders and drops an expired entry
+    private CachedDream lookup(int dreamId) {
+        Integer userId = dreamOwners.get(dreamId);
+        CachedDream cached = userId != null ? users.get(userId).get(dreamId) : null;
+        if (cached != null && System.nanoTime() - cached.loadedAt > ttlNanos) {
+            invalidate(dreamId);
+            cached = null;
+        }
+        if (cached != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return cached;
+    }
+
+    // Reads without touching statistics
+    private CachedDream peek(int dreamId) {
+        Integer userId = dreamOwners.get(dreamId);
+        return userId != null ? users.get(userId).get(dreamId) : null;
+    }
+
+    private CachedDream put(DreamEntry dream) {
+        int userId = dream.getUserId();
+        Map<Integer, CachedDream> dreams = users.computeIfAbsent(userId, id -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedDream> eldest) {
+                if (size() <= maxDreamsPerUser) {
+                    return false;
+                }
+                dreamOwners.remove(eldest.getKey());
+                return true;
+            }
+        });
+        CachedDream cached = new CachedDream(dream);
+        dreams.put(dream.getId(), cached);
+        dreamOwners.put(dream.getId(), userId);
+        return cached;
+    }
+
+    private static final class CachedDream {
+        private final DreamEntry dream;
+        private final long loadedAt = System.nanoTime();
+        // Distinguishes "no analysis yet" from "not looked up yet"
+        private boolean latestAnalysisLoaded;
+        private AnalysisResult latestAnalysis;
+        // Bumped on every change to the latest analysis, for read-through stores to check against
+        private long version;
+
+        CachedDream(DreamEntry dream) {
+            this.dream = dream;
+        }
+
+        void setLatestAnalysis(AnalysisResult analysis) {
+            latestAnalysis = analysis;
+            latestAnalysisLoaded = true;
+            version++;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+
+/**
+ * Told about every stored change to the journal, whatever the backend, so
+ * indexes and caches built from the repository can stay current. Register
+ * with {@link DreamRepositories#addListener}. Calls arrive on the writing
+ * thread after the change is stored, and must be quick and must not throw.
+ */
+public interface DreamChangeListener {
+
+    /** A dream was stored; it carries its new id. */
+    default void onDreamSaved(DreamEntry dream) {}
+
+    default void onDreamDeleted(int dreamId) {}
+
+    /** An analysis was stored; it carries its id and dream id. */
+    default void onAnalysisSaved(AnalysisResult result) {}
+
+    /**
+     * Many of the user's dreams changed at once, e.g. in a bulk import;
+     * anything held for the user should be dropped and rebuilt.
+     */
+    default void onUserChanged(int userId) {}
+}
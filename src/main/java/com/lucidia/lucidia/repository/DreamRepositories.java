@@ -0,0 +1,107 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Chooses the repository backend from {@code lucidia.repository}:
+ * {@code postgres} (default), {@code file} for an append-only log in the
+ * local data directory, or {@code memory}. PostgreSQL gets a read-through
+ * cache in front; the other backends already serve reads from memory.
+ * Writes through the default repository are reported to the listeners
+ * registered here, whichever backend stored them.
+ */
+public final class DreamRepositories {
+    private static final String JOURNAL_LOG_NAME = "journal.log";
+
+    private static final List<DreamChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private static final DreamChangeListener changes = new DreamChangeListener() {
+        @Override
+        public void onDreamSaved(DreamEntry dream) {
+            fireChange(listener -> listener.onDreamSaved(dream));
+        }
+
+        @Override
+        public void onDreamDeleted(int dreamId) {
+            fireChange(listener -> listener.onDreamDeleted(dreamId));
+        }
+
+        @Override
+        public void onAnalysisSaved(AnalysisResult result) {
+            fireChange(listener -> listener.onAnalysisSaved(result));
+        }
+
+        @Override
+        public void onUserChanged(int userId) {
+            fireChange(listener -> listener.onUserChanged(userId));
+        }
+    };
+
+    private static DreamRepository defaultRepository;
+
+    private DreamRepositories() {}
+
+    public static synchronized DreamRepository getDefault() {
+        if (defaultRepository == null) {
+            DreamRepository backend = create(DatabaseConfig.REPOSITORY_BACKEND);
+            if (backend instanceof DreamChangeListener cache) {
+                // A cache hears about writes that bypass it, such as the save queue and bulk imports
+                addListener(cache);
+            }
+            defaultRepository = new NotifyingDreamRepository(backend, changes);
+        }
+        return defaultRepository;
+    }
+
+    public static void addListener(DreamChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reports changes to every listener, for writers that store dreams
+     * without going through the default repository, such as the save queue
+     * and the bulk importer.
+     */
+    public static DreamChangeListener changes() {
+        return changes;
+    }
+
+    // The change is already stored, so a failing listener must not fail the write
+    private static void fireChange(Consumer<DreamChangeListener> event) {
+        for (DreamChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("Dream change listener " + listener.getClass().getSimpleName()
+                        + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public static DreamRepository create(String backend) {
+        switch (backend) {
+            case "postgres":
+                return new CachingDreamRepository(new PostgresDreamRepository(),
+                        DatabaseConfig.CACHE_MAX_USERS, DatabaseConfig.CACHE_DREAMS_PER_USER,
+                        TimeUnit.SECONDS.toMillis(DatabaseConfig.CACHE_TTL_SECONDS));
+            case "memory":
+                return new InMemoryDreamRepository();
+            case "file":
+                try {
+                    return new FileDreamRepository(DatabaseConfig.LOCAL_DATA_DIR.resolve(JOURNAL_LOG_NAME));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot open journal log in " + DatabaseConfig.LOCAL_DATA_DIR, e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown repository backend: " + backend
+                        + " (expected postgres, file or memory)");
+        }
+    }
+}
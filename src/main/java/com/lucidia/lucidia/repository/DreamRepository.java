@@ -0,0 +1,112 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence for dreams and their analyses, independent of where they are
+ * stored. {@link DreamRepositories#getDefault()} picks the implementation
+ * for the deployment. Storage failures surface as {@link SQLException} for
+ * every backend, matching what callers already handle.
+ */
+public interface DreamRepository {
+
+    /** SQL state of the error raised when an analysis names a dream that does not exist. */
+    String DREAM_NOT_FOUND = "23503";
+
+    /** Stores a new dream, sets its id and returns it. */
+    int saveDream(DreamEntry dream) throws SQLException;
+
+    DreamEntry getDream(int dreamId) throws SQLException;
+
+    boolean dreamExists(int dreamId) throws SQLException;
+
+    /**
+     * A user's dreams, newest first. {@code searchText} matches anywhere in the
+     * text, ignoring case; {@code filter} is one of the journal filter names
+     * ("All Dreams", "Last 7 Days", "Last 30 Days", "High Lucidity", "Vivid Dreams").
+     */
+    List<DreamEntry> getDreams(int userId, String searchText, String filter) throws SQLException;
+
+    /** Dreams stored after {@code afterId}, oldest first. */
+    List<DreamEntry> getDreamsAfter(int userId, int afterId) throws SQLException;
+
+    /** Deletes a dream together with its analyses. */
+    boolean deleteDream(int dreamId) throws SQLException;
+
+    /**
+     * Stores an analysis of an existing dream and sets its id. A missing dream
+     * fails with SQL state {@value #DREAM_NOT_FOUND}.
+     */
+    void saveAnalysis(AnalysisResult result) throws SQLException;
+
+    /**
+     * Stores a new dream together with its first analysis, atomically: either
+     * both are stored (and both get ids) or neither is.
+     */
+    void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException;
+
+    /** The most recent analysis of a dream, or null when it has none. */
+    AnalysisResult getLatestAnalysis(int dreamId) throws SQLException;
+
+    /** Every analysis of the user's dreams, newest first. */
+    List<AnalysisResult> getAnalysisHistory(int userId) throws SQLException;
+
+    /**
+     * Up to {@code limit} analyses of the user's dreams, newest first, starting
+     * after {@code after} (null for the newest). With {@code summaryOnly} the
+     * interpretation text is left out.
+     */
+    AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                        boolean summaryOnly) throws SQLException;
+
+    /**
+     * Hands every analysis of the user's dreams to {@code sink}, newest first,
+     * without collecting the history into a list.
+     */
+    void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException;
+
+    /**
+     * The latest analysis of each of the user's dreams, considering only
+     * analyses stored after {@code afterAnalysisId} (0 for all of them).
+     */
+    List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) throws SQLException;
+
+    /**
+     * Ids of the user's dreams whose latest analysis detected the given
+     * symbols, all of them or any of them, highest id first.
+     */
+    List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) throws SQLException;
+
+    /**
+     * Counts, averages, dreams per day and streaks over the user's dreams.
+     * "This month" starts on the first of {@code today}'s month, "this week"
+     * seven days before it, and the current streak must end on {@code today}.
+     * Frequencies and top items are left for the caller.
+     */
+    DreamStatistics getDreamAggregates(int userId, LocalDate today) throws SQLException;
+
+    /**
+     * Per-day dream counts and average ratings, oldest day first. The emotion
+     * score of each dream is taken from its latest analysis.
+     */
+    List<DailyDreamSummary> getDailyTimeline(int userId) throws SQLException;
+
+    /** Dominant emotion counts over the latest analysis of each dream. */
+    Map<String, Integer> getAnalyzedEmotionFrequency(int userId) throws SQLException;
+
+    /** Symbol counts over the latest analysis of each dream. */
+    Map<String, Integer> getAnalyzedSymbolFrequency(int userId) throws SQLException;
+
+    /** Text of the user's dreams that have never been analyzed. */
+    List<String> getUnanalyzedDreamTexts(int userId) throws SQLException;
+}
@@ -0,0 +1,201 @@
+package com.lucidia.lucidia.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores dreams and analyses in an append-only JSON Lines log and serves
+ * reads from the in-memory state rebuilt by replaying it on open. Every write
+ * is one appended record ({@code dream}, {@code analysis} or {@code delete});
+ * records are never rewritten. Appends reach the OS immediately but are only
+ * forced to disk by {@link #close()}.
+ */
+public class FileDreamRepository extends InMemoryDreamRepository implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path logPath;
+    private final FileChannel log;
+
+    public FileDreamRepository(Path logPath) throws IOException {
+        this.logPath = logPath;
+        if (logPath.getParent() != null) {
+            Files.createDirectories(logPath.getParent());
+        }
+        replay();
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized int saveDream(DreamEntry dream) throws SQLException {
+        int id = super.saveDream(dream);
+        try {
+            append(dreamRecord(dream));
+        } catch (IOException e) {
+            removeDream(id);
+            throw new SQLException("Could not append dream to " + logPath, e);
+        }
+        return id;
+    }
+
+    @Override
+    public synchronized boolean deleteDream(int dreamId) throws SQLException {
+        if (!dreamExists(dreamId)) {
+            return false;
+        }
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "delete");
+        record.put("id", dreamId);
+        try {
+            append(record);
+        } catch (IOException e) {
+            throw new SQLException("Could not append delete to " + logPath, e);
+        }
+        return removeDream(dreamId);
+    }
+
+    @Override
+    public synchronized void saveAnalysis(AnalysisResult result) throws SQLException {
+        // Validates the dream and assigns the id before anything is written
+        super.saveAnalysis(result);
+        try {
+            append(analysisRecord(result));
+        } catch (IOException e) {
+            removeAnalysis(result.getDreamId(), result.getId());
+            throw new SQLException("Could not append analysis to " + logPath, e);
+        }
+    }
+
+    // Both records go out in one write so a crash cannot keep the dream without its analysis
+    @Override
+    public synchronized void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        int id = super.saveDream(dream);
+        result.setDreamId(id);
+        super.saveAnalysis(result);
+        try {
+            append(dreamRecord(dream), analysisRecord(result));
+        } catch (IOException e) {
+            removeDream(id);
+            throw new SQLException("Could not append dream and analysis to " + logPath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log.isOpen()) {
+            log.force(false);
+            log.close();
+        }
+    }
+
+    private void append(JsonNode... records) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (JsonNode record : records) {
+            lines.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode record;
+                try {
+                    record = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    // A torn final line from a crash mid-append
+                    continue;
+                }
+                if (record == null) {
+                    continue;
+                }
+                switch (record.path("op").asText()) {
+                    case "dream" -> putDream(readDream(record));
+                    case "analysis" -> putAnalysis(readAnalysis(record));
+                    case "delete" -> removeDream(record.path("id").asInt());
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    private ObjectNode dreamRecord(DreamEntry dream) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "dream");
+        record.put("id", dream.getId());
+        record.put("userId", dream.getUserId());
+        record.put("dreamText", dream.getDreamText());
+        record.put("dreamDate", dream.getDreamDate().toString());
+        record.put("sleepQuality", dream.getSleepQuality());
+        record.put("lucidityLevel", dream.getLucidityLevel());
+        return record;
+    }
+
+    private static DreamEntry readDream(JsonNode record) {
+        DreamEntry dream = new DreamEntry(
+                record.path("userId").asInt(),
+                record.path("dreamText").asText(),
+                LocalDate.parse(record.path("dreamDate").asText()),
+                record.path("sleepQuality").asInt(),
+                record.path("lucidityLevel").asInt()
+        );
+        dream.setId(record.path("id").asInt());
+        return dream;
+    }
+
+    private ObjectNode analysisRecord(AnalysisResult result) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "analysis");
+        record.put("id", result.getId());
+        record.put("dreamId", result.getDreamId());
+        record.put("analysisTimestamp", result.getAnalysisTimestamp() != null ? result.getAnalysisTimestamp().toString() : null);
+        record.put("dominantEmotion", result.getDominantEmotion());
+        record.put("emotionScore", result.getEmotionScore());
+        record.put("confidenceScore", result.getConfidenceScore());
+        ArrayNode symbols = record.putArray("symbols");
+        if (result.getSymbolsDetected() != null) {
+            result.getSymbolsDetected().forEach(symbols::add);
+        }
+        record.put("interpretationText", result.getInterpretationText());
+        return record;
+    }
+
+    private static AnalysisResult readAnalysis(JsonNode record) {
+        AnalysisResult result = new AnalysisResult();
+        result.setId(record.path("id").asInt());
+        result.setDreamId(record.path("dreamId").asInt());
+        result.setAnalysisTimestamp(record.hasNonNull("analysisTimestamp")
+                ? LocalDateTime.parse(record.get("analysisTimestamp").asText()) : null);
+        result.setDominantEmotion(record.path("dominantEmotion").asText(null));
+        result.setEmotionScore(record.path("emotionScore").asDouble());
+        result.setConfidenceScore(record.path("confidenceScore").asDouble());
+        List<String> symbols = new ArrayList<>();
+        record.path("symbols").forEach(symbol -> symbols.add(symbol.asText()));
+        result.setSymbolsDetected(symbols);
+        result.setInterpretationText(record.path("interpretationText").asText(null));
+        return result;
+    }
+}
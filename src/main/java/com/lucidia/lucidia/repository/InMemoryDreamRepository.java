@@ -0,0 +1,362 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Keeps everything on the heap, for benchmarks, tests and throwaway sessions.
+ * Entries are copied in and out so callers cannot change stored state by
+ * mutating what they passed or got back.
+ */
+public class InMemoryDreamRepository implements DreamRepository {
+    private final Map<Integer, DreamEntry> dreams = new HashMap<>();
+    private final Map<Integer, NavigableMap<Integer, DreamEntry>> dreamsByUser = new HashMap<>();
+    // Analyses per dream in the order they were stored
+    private final Map<Integer, List<AnalysisResult>> analysesByDream = new HashMap<>();
+    private int lastDreamId;
+    private int lastAnalysisId;
+
+    @Override
+    public synchronized int saveDream(DreamEntry dream) throws SQLException {
+        DreamEntry stored = copyOf(dream);
+        stored.setId(++lastDreamId);
+        putDream(stored);
+        dream.setId(stored.getId());
+        return stored.getId();
+    }
+
+    @Override
+    public synchronized DreamEntry getDream(int dreamId) {
+        DreamEntry dream = dreams.get(dreamId);
+        return dream != null ? copyOf(dream) : null;
+    }
+
+    @Override
+    public synchronized boolean dreamExists(int dreamId) {
+        return dreams.containsKey(dreamId);
+    }
+
+    @Override
+    public synchronized List<DreamEntry> getDreams(int userId, String searchText, String filter) {
+        LocalDate today = LocalDate.now();
+        List<DreamEntry> result = new ArrayList<>();
+        for (DreamEntry dream : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).values()) {
+            if (matchesFilter(dream, searchText, filter, today)) {
+                result.add(copyOf(dream));
+            }
+        }
+        result.sort(Comparator.comparing(DreamEntry::getDreamDate).reversed()
+                .thenComparing(Comparator.comparingInt(DreamEntry::getId).reversed()));
+        return result;
+    }
+
+    @Override
+    public synchronized List<DreamEntry> getDreamsAfter(int userId, int afterId) {
+        List<DreamEntry> result = new ArrayList<>();
+        for (DreamEntry dream : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap())
+                .tailMap(afterId, false).values()) {
+            result.add(copyOf(dream));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean deleteDream(int dreamId) throws SQLException {
+        return removeDream(dreamId);
+    }
+
+    // Used directly when replaying stored state and rolling back failed writes
+    boolean removeDream(int dreamId) {
+        DreamEntry removed = dreams.remove(dreamId);
+        if (removed == null) {
+            return false;
+        }
+        dreamsByUser.get(removed.getUserId()).remove(dreamId);
+        analysesByDream.remove(dreamId);
+        return true;
+    }
+
+    @Override
+    public synchronized void saveAnalysis(AnalysisResult result) throws SQLException {
+        if (!dreams.containsKey(result.getDreamId())) {
+            throw new SQLException("Cannot save analysis: Dream with ID " + result.getDreamId() + " does not exist",
+                    DREAM_NOT_FOUND);
+        }
+        AnalysisResult stored = copyOf(result);
+        stored.setId(++lastAnalysisId);
+        putAnalysis(stored);
+        result.setId(stored.getId());
+    }
+
+    @Override
+    public synchronized void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        saveDream(dream);
+        result.setDreamId(dream.getId());
+        saveAnalysis(result);
+    }
+
+    @Override
+    public synchronized AnalysisResult getLatestAnalysis(int dreamId) {
+        AnalysisResult latest = latestOf(dreamId);
+        return latest != null ? copyOf(latest) : null;
+    }
+
+    @Override
+    public synchronized List<AnalysisResult> getAnalysisHistory(int userId) {
+        List<AnalysisResult> result = new ArrayList<>();
+        for (Integer dreamId : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).keySet()) {
+            for (AnalysisResult analysis : analysesByDream.getOrDefault(dreamId, List.of())) {
+                result.add(copyOf(analysis));
+            }
+        }
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+
+    @Override
+    public synchronized AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                                            boolean summaryOnly) {
+        List<AnalysisResult> page = new ArrayList<>(limit);
+        AnalysisPage.Cursor next = null;
+        for (AnalysisResult analysis : getAnalysisHistory(userId)) {
+            if (after != null && !after.precedes(analysis)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                next = AnalysisPage.Cursor.after(page.get(limit - 1));
+                break;
+            }
+            page.add(summaryOnly ? summaryOf(analysis) : analysis);
+        }
+        return new AnalysisPage(page, next);
+    }
+
+    @Override
+    public void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws IOException {
+        // Snapshot under the lock, so a slow sink does not hold up writers
+        for (AnalysisResult analysis : getAnalysisHistory(userId)) {
+            sink.accept(summaryOnly ? summaryOf(analysis) : analysis);
+        }
+    }
+
+    @Override
+    public synchronized List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) {
+        List<AnalysisResult> result = new ArrayList<>();
+        for (Integer dreamId : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).keySet()) {
+            analysesByDream.getOrDefault(dreamId, List.of()).stream()
+                    .filter(analysis -> analysis.getId() > afterAnalysisId)
+                    .min(NEWEST_FIRST)
+                    .ifPresent(latest -> result.add(copyOf(latest)));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) {
+        List<Integer> result = new ArrayList<>();
+        if (symbols.isEmpty()) {
+            return result;
+        }
+        for (Integer dreamId : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).descendingKeySet()) {
+            AnalysisResult latest = latestOf(dreamId);
+            if (latest == null || latest.getSymbolsDetected() == null) {
+                continue;
+            }
+            List<String> detected = latest.getSymbolsDetected();
+            if (matchAll ? detected.containsAll(symbols) : symbols.stream().anyMatch(detected::contains)) {
+                result.add(dreamId);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized DreamStatistics getDreamAggregates(int userId, LocalDate today) {
+        Collection<DreamEntry> userDreams = dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).values();
+        LocalDate firstOfMonth = today.withDayOfMonth(1);
+        LocalDate weekStart = today.minusDays(7);
+
+        DreamStatistics stats = new DreamStatistics();
+        Map<LocalDate, Integer> dreamsPerDay = new HashMap<>();
+        int thisMonth = 0;
+        int thisWeek = 0;
+        long sleepTotal = 0;
+        long lucidityTotal = 0;
+        for (DreamEntry dream : userDreams) {
+            thisMonth += dream.getDreamDate().isBefore(firstOfMonth) ? 0 : 1;
+            thisWeek += dream.getDreamDate().isBefore(weekStart) ? 0 : 1;
+            sleepTotal += dream.getSleepQuality();
+            lucidityTotal += dream.getLucidityLevel();
+            dreamsPerDay.merge(dream.getDreamDate(), 1, Integer::sum);
+        }
+        stats.setTotalDreams(userDreams.size());
+        stats.setDreamsThisMonth(thisMonth);
+        stats.setDreamsThisWeek(thisWeek);
+        stats.setAverageSleepQuality(userDreams.isEmpty() ? 0 : (double) sleepTotal / userDreams.size());
+        stats.setAverageLucidity(userDreams.isEmpty() ? 0 : (double) lucidityTotal / userDreams.size());
+        stats.setDreamsPerDay(dreamsPerDay);
+
+        // Runs of consecutive days, walked in date order
+        int longest = 0;
+        int current = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (LocalDate day : new TreeSet<>(dreamsPerDay.keySet())) {
+            run = previous != null && previous.plusDays(1).equals(day) ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            if (day.equals(today)) {
+                current = run;
+            }
+            previous = day;
+        }
+        stats.setLongestDreamStreak(longest);
+        stats.setCurrentStreak(current);
+        return stats;
+    }
+
+    @Override
+    public synchronized List<DailyDreamSummary> getDailyTimeline(int userId) {
+        // Per day: dream count, sleep total, emotion score total, analyzed dream count
+        Map<LocalDate, double[]> days = new TreeMap<>();
+        for (DreamEntry dream : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).values()) {
+            double[] day = days.computeIfAbsent(dream.getDreamDate(), date -> new double[4]);
+            day[0]++;
+            day[1] += dream.getSleepQuality();
+            AnalysisResult latest = latestOf(dream.getId());
+            if (latest != null) {
+                day[2] += latest.getEmotionScore();
+                day[3]++;
+            }
+        }
+        List<DailyDreamSummary> result = new ArrayList<>(days.size());
+        for (Map.Entry<LocalDate, double[]> day : days.entrySet()) {
+            double[] totals = day.getValue();
+            result.add(new DailyDreamSummary(day.getKey(), (int) totals[0], totals[1] / totals[0],
+                    totals[3] > 0 ? totals[2] / totals[3] : null));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getAnalyzedEmotionFrequency(int userId) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Integer dreamId : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).keySet()) {
+            AnalysisResult latest = latestOf(dreamId);
+            if (latest != null) {
+                counts.merge(latest.getDominantEmotion(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getAnalyzedSymbolFrequency(int userId) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Integer dreamId : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).keySet()) {
+            AnalysisResult latest = latestOf(dreamId);
+            if (latest != null && latest.getSymbolsDetected() != null) {
+                for (String symbol : latest.getSymbolsDetected()) {
+                    counts.merge(symbol, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized List<String> getUnanalyzedDreamTexts(int userId) {
+        List<String> texts = new ArrayList<>();
+        for (DreamEntry dream : dreamsByUser.getOrDefault(userId, Collections.emptyNavigableMap()).values()) {
+            if (analysesByDream.getOrDefault(dream.getId(), List.of()).isEmpty()) {
+                texts.add(dream.getDreamText());
+            }
+        }
+        return texts;
+    }
+
+    private AnalysisResult latestOf(int dreamId) {
+        return analysesByDream.getOrDefault(dreamId, List.of()).stream().min(NEWEST_FIRST).orElse(null);
+    }
+
+    // Used directly when replaying stored state, where ids are already assigned
+    void putDream(DreamEntry dream) {
+        dreams.put(dream.getId(), dream);
+        dreamsByUser.computeIfAbsent(dream.getUserId(), id -> new TreeMap<>()).put(dream.getId(), dream);
+        lastDreamId = Math.max(lastDreamId, dream.getId());
+    }
+
+    void putAnalysis(AnalysisResult analysis) {
+        analysesByDream.computeIfAbsent(analysis.getDreamId(), id -> new ArrayList<>()).add(analysis);
+        lastAnalysisId = Math.max(lastAnalysisId, analysis.getId());
+    }
+
+    void removeAnalysis(int dreamId, int analysisId) {
+        List<AnalysisResult> analyses = analysesByDream.get(dreamId);
+        if (analyses != null) {
+            analyses.removeIf(analysis -> analysis.getId() == analysisId);
+        }
+    }
+
+    private static final Comparator<AnalysisResult> NEWEST_FIRST =
+            Comparator.comparing(AnalysisResult::getAnalysisTimestamp,
+                            Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                    .thenComparing(Comparator.comparingInt(AnalysisResult::getId).reversed());
+
+    /**
+     * The journal search and filter rules shared by the non-SQL stores; they
+     * mirror the conditions {@code DatabaseService.getDreamEntries} puts in SQL.
+     */
+    public static boolean matchesFilter(DreamEntry dream, String searchText, String filter, LocalDate today) {
+        if (searchText != null && !searchText.trim().isEmpty()
+                && !dream.getDreamText().toLowerCase(Locale.ROOT).contains(searchText.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (filter == null) {
+            return true;
+        }
+        return switch (filter) {
+            case "Last 7 Days" -> !dream.getDreamDate().isBefore(today.minusDays(7));
+            case "Last 30 Days" -> !dream.getDreamDate().isBefore(today.minusDays(30));
+            case "High Lucidity" -> dream.getLucidityLevel() >= 3;
+            case "Vivid Dreams" -> dream.getSleepQuality() >= 8;
+            default -> true;
+        };
+    }
+
+    /** A detached copy, for stores that must not share instances with their callers. */
+    public static DreamEntry copyOf(DreamEntry dream) {
+        DreamEntry copy = new DreamEntry(dream.getUserId(), dream.getDreamText(), dream.getDreamDate(),
+                dream.getSleepQuality(), dream.getLucidityLevel());
+        copy.setId(dream.getId());
+        return copy;
+    }
+
+    // The copies from getAnalysisHistory are private, so they can be trimmed in place
+    private static AnalysisResult summaryOf(AnalysisResult analysis) {
+        analysis.setInterpretationText(null);
+        return analysis;
+    }
+
+    /** A detached copy whose symbol and emotion collections are immutable. */
+    public static AnalysisResult copyOf(AnalysisResult analysis) {
+        AnalysisResult copy = new AnalysisResult();
+        copy.setId(analysis.getId());
+        copy.setDreamId(analysis.getDreamId());
+        copy.setEmotionScore(analysis.getEmotionScore());
+        copy.setDominantEmotion(analysis.getDominantEmotion());
+        copy.setSymbolsDetected(analysis.getSymbolsDetected() != null ? List.copyOf(analysis.getSymbolsDetected()) : List.of());
+        copy.setInterpretationText(analysis.getInterpretationText());
+        copy.setConfidenceScore(analysis.getConfidenceScore());
+        copy.setAnalysisTimestamp(analysis.getAnalysisTimestamp());
+        copy.setEmotionBreakdown(analysis.getEmotionBreakdown() != null ? Map.copyOf(analysis.getEmotionBreakdown()) : null);
+        return copy;
+    }
+}
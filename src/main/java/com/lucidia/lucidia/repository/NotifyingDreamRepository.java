@@ -0,0 +1,132 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes every call to another repository and, once a write has succeeded,
+ * tells the {@link DreamChangeListener}s about it. Failed writes notify no one.
+ */
+public class NotifyingDreamRepository implements DreamRepository {
+    private final DreamRepository delegate;
+    private final DreamChangeListener listener;
+
+    public NotifyingDreamRepository(DreamRepository delegate, DreamChangeListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public int saveDream(DreamEntry dream) throws SQLException {
+        int id = delegate.saveDream(dream);
+        listener.onDreamSaved(dream);
+        return id;
+    }
+
+    @Override
+    public DreamEntry getDream(int dreamId) throws SQLException {
+        return delegate.getDream(dreamId);
+    }
+
+    @Override
+    public boolean dreamExists(int dreamId) throws SQLException {
+        return delegate.dreamExists(dreamId);
+    }
+
+    @Override
+    public List<DreamEntry> getDreams(int userId, String searchText, String filter) throws SQLException {
+        return delegate.getDreams(userId, searchText, filter);
+    }
+
+    @Override
+    public List<DreamEntry> getDreamsAfter(int userId, int afterId) throws SQLException {
+        return delegate.getDreamsAfter(userId, afterId);
+    }
+
+    @Override
+    public boolean deleteDream(int dreamId) throws SQLException {
+        boolean deleted = delegate.deleteDream(dreamId);
+        if (deleted) {
+            listener.onDreamDeleted(dreamId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public void saveAnalysis(AnalysisResult result) throws SQLException {
+        delegate.saveAnalysis(result);
+        listener.onAnalysisSaved(result);
+    }
+
+    @Override
+    public void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        delegate.saveDreamWithAnalysis(dream, result);
+        listener.onDreamSaved(dream);
+        listener.onAnalysisSaved(result);
+    }
+
+    @Override
+    public AnalysisResult getLatestAnalysis(int dreamId) throws SQLException {
+        return delegate.getLatestAnalysis(dreamId);
+    }
+
+    @Override
+    public List<AnalysisResult> getAnalysisHistory(int userId) throws SQLException {
+        return delegate.getAnalysisHistory(userId);
+    }
+
+    @Override
+    public AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                               boolean summaryOnly) throws SQLException {
+        return delegate.getAnalysisHistoryPage(userId, after, limit, summaryOnly);
+    }
+
+    @Override
+    public void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException {
+        delegate.streamAnalysisHistory(userId, summaryOnly, sink);
+    }
+
+    @Override
+    public List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) throws SQLException {
+        return delegate.getLatestAnalyses(userId, afterAnalysisId);
+    }
+
+    @Override
+    public List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) throws SQLException {
+        return delegate.findDreamIdsBySymbols(userId, symbols, matchAll);
+    }
+
+    @Override
+    public DreamStatistics getDreamAggregates(int userId, LocalDate today) throws SQLException {
+        return delegate.getDreamAggregates(userId, today);
+    }
+
+    @Override
+    public List<DailyDreamSummary> getDailyTimeline(int userId) throws SQLException {
+        return delegate.getDailyTimeline(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedEmotionFrequency(int userId) throws SQLException {
+        return delegate.getAnalyzedEmotionFrequency(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedSymbolFrequency(int userId) throws SQLException {
+        return delegate.getAnalyzedSymbolFrequency(userId);
+    }
+
+    @Override
+    public List<String> getUnanalyzedDreamTexts(int userId) throws SQLException {
+        return delegate.getUnanalyzedDreamTexts(userId);
+    }
+}
@@ -0,0 +1,127 @@
+package com.lucidia.lucidia.repository;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+import com.lucidia.lucidia.service.DatabaseService;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PostgreSQL backend. Calls go through {@link DatabaseService}, so they
+ * share its connection, statement cache and query statistics; aggregates are
+ * computed in SQL.
+ */
+public class PostgresDreamRepository implements DreamRepository {
+    private final DatabaseService databaseService;
+
+    public PostgresDreamRepository() {
+        this(DatabaseService.getInstance());
+    }
+
+    public PostgresDreamRepository(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    @Override
+    public int saveDream(DreamEntry dream) throws SQLException {
+        return databaseService.saveDreamEntry(dream);
+    }
+
+    @Override
+    public DreamEntry getDream(int dreamId) throws SQLException {
+        return databaseService.getDreamEntry(dreamId);
+    }
+
+    @Override
+    public boolean dreamExists(int dreamId) throws SQLException {
+        return databaseService.dreamExists(dreamId);
+    }
+
+    @Override
+    public List<DreamEntry> getDreams(int userId, String searchText, String filter) throws SQLException {
+        return databaseService.getDreamEntries(searchText, filter, userId);
+    }
+
+    @Override
+    public List<DreamEntry> getDreamsAfter(int userId, int afterId) throws SQLException {
+        return databaseService.getDreamEntriesAfter(userId, afterId);
+    }
+
+    @Override
+    public boolean deleteDream(int dreamId) throws SQLException {
+        return databaseService.deleteDreamEntry(dreamId);
+    }
+
+    @Override
+    public void saveAnalysis(AnalysisResult result) throws SQLException {
+        databaseService.saveAnalysisResult(result);
+    }
+
+    @Override
+    public void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        databaseService.saveDreamWithAnalysis(dream, result);
+    }
+
+    @Override
+    public AnalysisResult getLatestAnalysis(int dreamId) throws SQLException {
+        return databaseService.getLatestAnalysis(dreamId);
+    }
+
+    @Override
+    public List<AnalysisResult> getAnalysisHistory(int userId) throws SQLException {
+        return databaseService.getUserAnalysisHistory(userId);
+    }
+
+    @Override
+    public AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                               boolean summaryOnly) throws SQLException {
+        return databaseService.getAnalysisHistoryPage(userId, after, limit, summaryOnly);
+    }
+
+    @Override
+    public void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException {
+        databaseService.streamAnalysisHistory(userId, summaryOnly, sink);
+    }
+
+    @Override
+    public List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) throws SQLException {
+        return databaseService.getLatestAnalyses(userId, afterAnalysisId);
+    }
+
+    @Override
+    public List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) throws SQLException {
+        return databaseService.findDreamIdsBySymbols(userId, symbols, matchAll);
+    }
+
+    @Override
+    public DreamStatistics getDreamAggregates(int userId, LocalDate today) throws SQLException {
+        return databaseService.getDreamAggregates(userId, today);
+    }
+
+    @Override
+    public List<DailyDreamSummary> getDailyTimeline(int userId) throws SQLException {
+        return databaseService.getDailyTimeline(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedEmotionFrequency(int userId) throws SQLException {
+        return databaseService.getAnalyzedEmotionFrequency(userId);
+    }
+
+    @Override
+    public Map<String, Integer> getAnalyzedSymbolFrequency(int userId) throws SQLException {
+        return databaseService.getAnalyzedSymbolFrequency(userId);
+    }
+
+    @Override
+    public List<String> getUnanalyzedDreamTexts(int userId) throws SQLException {
+        return databaseService.getUnanalyzedDreamTexts(userId);
+    }
+}
@@ -0,0 +1,101 @@
+package com.lucidia.lucidia.server;
+
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Bearer tokens accepted by the API, read from a properties file of
+ * {@code token=admin} or {@code token=<userId>} lines. A user token reaches
+ * only that user's routes; an admin token reaches every route, including
+ * {@code /api/queries}. With no file, every request is refused.
+ */
+public class ApiTokens {
+
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("lucidia.api.tokensFile",
+            DatabaseConfig.LOCAL_DATA_DIR.resolve("api-tokens.properties").toString()));
+
+    private static final String ADMIN = "admin";
+
+    // Keyed by digest, so a lookup takes the same time however much of a guess matches
+    private final Map<String, Principal> principals;
+
+    private ApiTokens(Map<String, Principal> principals) {
+        this.principals = principals;
+    }
+
+    public static ApiTokens load(Path file) throws IOException {
+        Map<String, Principal> principals = new HashMap<>();
+        if (!Files.exists(file)) {
+            System.err.println("No API tokens at " + file + "; every API request will be refused");
+            return new ApiTokens(principals);
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String token : properties.stringPropertyNames()) {
+            String owner = properties.getProperty(token).trim();
+            Principal principal;
+            if (owner.equalsIgnoreCase(ADMIN)) {
+                principal = new Principal(0, true);
+            } else {
+                try {
+                    principal = new Principal(Integer.parseInt(owner), false);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Token owner must be 'admin' or a user id, not '" + owner + "' in " + file);
+                }
+            }
+            principals.put(digest(token), principal);
+        }
+        return new ApiTokens(principals);
+    }
+
+    /** Who the {@code Authorization} header belongs to, or null if it carries no known bearer token. */
+    public Principal authenticate(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = authorization.substring(7).trim();
+        return token.isEmpty() ? null : principals.get(digest(token));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    public static final class Principal {
+        private final int userId;
+        private final boolean admin;
+
+        Principal(int userId, boolean admin) {
+            this.userId = userId;
+            this.admin = admin;
+        }
+
+        public boolean isAdmin() { return admin; }
+
+        public boolean canAccessUser(int userId) {
+            return admin || this.userId == userId;
+        }
+    }
+}
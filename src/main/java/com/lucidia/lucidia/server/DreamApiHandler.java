@@ -0,0 +1,592 @@
+package com.lucidia.lucidia.server;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+import com.lucidia.lucidia.repository.AnalysisPage;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
+import com.lucidia.lucidia.service.*;
+import com.lucidia.lucidia.util.SpaceSavingSketch;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Routes {@code /api/...} requests to the dream services and streams JSON
+ * responses with Jackson's generator, so no response is built as a tree first.
+ *
+ * <pre>
+ * GET    /api/users/{userId}/dreams?search=&amp;filter=
+ * POST   /api/users/{userId}/dreams
+ * GET    /api/users/{userId}/dreams/{dreamId}
+ * DELETE /api/users/{userId}/dreams/{dreamId}
+ * GET    /api/users/{userId}/dreams/{dreamId}/analysis
+ * POST   /api/users/{userId}/dreams/{dreamId}/analysis
+ * GET    /api/users/{userId}/analysis?limit=&amp;after=&amp;summary=
+ * POST   /api/users/{userId}/analysis
+ * GET    /api/users/{userId}/similar?q=&amp;limit=
+ * GET    /api/users/{userId}/statistics
+ * GET    /api/trends?days=&amp;limit=
+ * GET    /api/queries
+ * </pre>
+ *
+ * <p>Every request needs an {@code Authorization: Bearer} token from
+ * {@link ApiTokens}: user routes accept that user's token or an admin's,
+ * trends accept any token, and query statistics only an admin's.
+ */
+public class DreamApiHandler implements HttpHandler {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    private final DatabaseService databaseService = DatabaseService.getInstance();
+    private final DreamRepository repository = DreamRepositories.getDefault();
+    private final DreamAnalysisService analysisService = new DreamAnalysisService();
+    private final DreamAnalyticsService analyticsService = new DreamAnalyticsService();
+    private final ApiTokens tokens;
+    private final ConnectionPool connectionPool;
+
+    /** {@code connectionPool} may be null when the repository does not use PostgreSQL. */
+    public DreamApiHandler(ApiTokens tokens, ConnectionPool connectionPool) {
+        this.tokens = tokens;
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // Database work for this request borrows one pooled connection, returned when the scope closes
+        try (ConnectionPool.Scope scope = connectionPool != null ? connectionPool.open() : null) {
+            route(exchange);
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (SQLTransientConnectionException e) {
+            System.err.println("API request refused: " + e.getMessage());
+            if (exchange.getResponseCode() == -1) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            sendError(exchange, 503, "Database busy, try again shortly");
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal server error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        ApiTokens.Principal principal = tokens.authenticate(exchange.getRequestHeaders().getFirst("Authorization"));
+        if (principal == null) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new ApiException(401, "A valid bearer token is required");
+        }
+
+        if (path.length == 1 && path[0].equals("trends")) {
+            requireMethod(method, "GET");
+            handleTrends(exchange, query);
+            return;
+        }
+        if (path.length == 1 && path[0].equals("queries")) {
+            if (!principal.isAdmin()) {
+                throw new ApiException(403, "Query statistics are for admins only");
+            }
+            requireMethod(method, "GET");
+            handleQueryStatistics(exchange);
+            return;
+        }
+        if (path.length < 3 || !path[0].equals("users")) {
+            throw new ApiException(404, "Unknown endpoint");
+        }
+
+        int userId = parseId(path[1], "user id");
+        if (!principal.canAccessUser(userId)) {
+            throw new ApiException(403, "Token does not grant access to user " + userId);
+        }
+        String resource = path[2];
+
+        switch (resource) {
+            case "dreams" -> routeDreams(exchange, method, path, query, userId);
+            case "analysis" -> {
+                if (path.length != 3) throw new ApiException(404, "Unknown endpoint");
+                if (method.equals("GET")) {
+                    handleAnalysisHistory(exchange, query, userId);
+                } else {
+                    requireMethod(method, "POST");
+                    DreamEntry dream = readDream(exchange, userId);
+                    handleAnalyze(exchange, dream);
+                }
+            }
+            case "similar" -> {
+                requireMethod(method, "GET");
+                handleSimilar(exchange, query, userId);
+            }
+            case "statistics" -> {
+                requireMethod(method, "GET");
+                handleStatistics(exchange, userId);
+            }
+            case "symbols" -> {
+                requireMethod(method, "GET");
+                handleSymbolSearch(exchange, query, userId);
+            }
+            default -> throw new ApiException(404, "Unknown endpoint");
+        }
+    }
+
+    private void routeDreams(HttpExchange exchange, String method, String[] path,
+                             Map<String, String> query, int userId) throws Exception {
+        if (path.length == 3) {
+            if (method.equals("GET")) {
+                List<DreamEntry> dreams = repository.getDreams(userId, query.get("search"), query.get("filter"));
+                sendJson(exchange, 200, gen -> {
+                    gen.writeStartArray();
+                    for (DreamEntry dream : dreams) {
+                        writeDream(gen, dream);
+                    }
+                    gen.writeEndArray();
+                });
+            } else {
+                requireMethod(method, "POST");
+                DreamEntry dream = readDream(exchange, userId);
+                repository.saveDream(dream);
+                sendJson(exchange, 201, gen -> writeDream(gen, dream));
+            }
+            return;
+        }
+
+        DreamEntry dream = findOwnedDream(parseId(path[3], "dream id"), userId);
+
+        if (path.length == 4) {
+            if (method.equals("GET")) {
+                sendJson(exchange, 200, gen -> writeDream(gen, dream));
+            } else {
+                requireMethod(method, "DELETE");
+                repository.deleteDream(dream.getId());
+                exchange.sendResponseHeaders(204, -1);
+            }
+        } else if (path.length == 5 && path[4].equals("analysis")) {
+            if (method.equals("GET")) {
+                AnalysisResult latest = repository.getLatestAnalysis(dream.getId());
+                if (latest == null) {
+                    throw new ApiException(404, "Dream " + dream.getId() + " has not been analyzed");
+                }
+                sendJson(exchange, 200, gen -> writeAnalysis(gen, latest));
+            } else {
+                requireMethod(method, "POST");
+                handleAnalyze(exchange, dream);
+            }
+        } else {
+            throw new ApiException(404, "Unknown endpoint");
+        }
+    }
+
+    private void handleAnalyze(HttpExchange exchange, DreamEntry dream) throws IOException {
+        AnalysisResult result = analysisService.performFullAnalysis(dream);
+        sendJson(exchange, 201, gen -> writeAnalysis(gen, result));
+    }
+
+    /**
+     * With {@code limit} or {@code after}, one page as {@code {"items": [...],
+     * "nextCursor": ...}}; pass nextCursor back as {@code after} for the next
+     * page. Without them, the whole history as an array, streamed from the
+     * database cursor as it is read. {@code summary=true} leaves out the
+     * interpretation text.
+     */
+    private void handleAnalysisHistory(HttpExchange exchange, Map<String, String> query, int userId) throws Exception {
+        boolean summaryOnly = Boolean.parseBoolean(query.get("summary"));
+
+        if (!query.containsKey("limit") && !query.containsKey("after")) {
+            // Once streaming starts the status is sent, so a busy pool must be found out first
+            ConnectionPool.reserve();
+            sendJson(exchange, 200, gen -> {
+                gen.writeStartArray();
+                try {
+                    analysisService.streamUserAnalysisHistory(userId, summaryOnly, result -> writeAnalysis(gen, result));
+                } catch (SQLException e) {
+                    // The status line is already sent; failing the write leaves the array unterminated,
+                    // so the client sees invalid JSON rather than a short but complete history
+                    throw new IOException("Analysis history stream failed", e);
+                }
+                gen.writeEndArray();
+            });
+            return;
+        }
+
+        AnalysisPage.Cursor after = null;
+        if (query.get("after") != null && !query.get("after").isEmpty()) {
+            try {
+                after = AnalysisPage.Cursor.parse(query.get("after"));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, e.getMessage());
+            }
+        }
+        AnalysisPage page = analysisService.getUserAnalysisHistoryPage(userId, after,
+                parseLimit(query.get("limit"), DEFAULT_PAGE_SIZE), summaryOnly);
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("items");
+            for (AnalysisResult result : page.getItems()) {
+                writeAnalysis(gen, result);
+            }
+            gen.writeEndArray();
+            gen.writeStringField("nextCursor",
+                    page.getNextCursor() != null ? page.getNextCursor().toString() : null);
+            gen.writeEndObject();
+        });
+    }
+
+    private void handleSimilar(HttpExchange exchange, Map<String, String> query, int userId) throws Exception {
+        String text = query.get("q");
+        if (text == null || text.isBlank()) {
+            throw new ApiException(400, "Query parameter 'q' is required");
+        }
+        int limit = parseLimit(query.get("limit"), 5);
+
+        List<DreamSearchIndex.SimilarDream> matches =
+                DreamSearchIndex.getInstance().findSimilarDreams(userId, text, -1, limit);
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartArray();
+            for (DreamSearchIndex.SimilarDream match : matches) {
+                gen.writeStartObject();
+                gen.writeNumberField("dreamId", match.getDreamId());
+                gen.writeStringField("dreamDate", String.valueOf(match.getDreamDate()));
+                gen.writeStringField("preview", match.getPreview());
+                gen.writeNumberField("score", match.getScore());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        });
+    }
+
+    // GET /api/users/{id}/symbols?has=snake,water&match=all|any
+    private void handleSymbolSearch(HttpExchange exchange, Map<String, String> query, int userId) throws Exception {
+        String has = query.get("has");
+        if (has == null || has.isBlank()) {
+            throw new ApiException(400, "Query parameter 'has' is required");
+        }
+        List<String> symbols = Arrays.stream(has.split(","))
+                .map(symbol -> symbol.trim().toLowerCase())
+                .filter(symbol -> !symbol.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        boolean matchAll = !"any".equals(query.get("match"));
+
+        List<Integer> dreamIds = repository.findDreamIdsBySymbols(userId, symbols, matchAll);
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("match", matchAll ? "all" : "any");
+            gen.writeArrayFieldStart("symbols");
+            for (String symbol : symbols) {
+                gen.writeString(symbol);
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("dreamIds");
+            for (int dreamId : dreamIds) {
+                gen.writeNumber(dreamId);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+    }
+
+    private void handleStatistics(HttpExchange exchange, int userId) throws Exception {
+        // A failed load reaches handle() as a 500 instead of looking like an empty journal
+        DreamStatistics stats = analyticsService.computeUserStatistics(userId);
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartObject();
+            gen.writeNumberField("totalDreams", stats.getTotalDreams());
+            gen.writeNumberField("dreamsThisMonth", stats.getDreamsThisMonth());
+            gen.writeNumberField("dreamsThisWeek", stats.getDreamsThisWeek());
+            gen.writeNumberField("averageSleepQuality", stats.getAverageSleepQuality());
+            gen.writeNumberField("averageLucidity", stats.getAverageLucidity());
+            gen.writeStringField("mostCommonEmotion", stats.getMostCommonEmotion());
+            gen.writeNumberField("longestDreamStreak", stats.getLongestDreamStreak());
+            gen.writeNumberField("currentStreak", stats.getCurrentStreak());
+
+            gen.writeArrayFieldStart("topSymbols");
+            for (String symbol : stats.getTopSymbols()) {
+                gen.writeString(symbol);
+            }
+            gen.writeEndArray();
+
+            writeCounts(gen, "emotionFrequency", stats.getEmotionFrequency());
+            writeCounts(gen, "symbolFrequency", stats.getSymbolFrequency());
+
+            gen.writeObjectFieldStart("dreamsPerDay");
+            for (Map.Entry<LocalDate, Integer> day : new TreeMap<>(stats.getDreamsPerDay()).entrySet()) {
+                gen.writeNumberField(day.getKey().toString(), day.getValue());
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        });
+    }
+
+    private void handleTrends(HttpExchange exchange, Map<String, String> query) throws IOException {
+        TrendService trends = TrendService.getInstance();
+        // Older days are no longer kept, so the reported range is the one actually covered
+        int days = Math.min(parseLimit(query.get("days"), 7), trends.getRetainedDays());
+        int limit = parseLimit(query.get("limit"), 10);
+
+        List<SpaceSavingSketch.ItemCount> symbols = trends.getTrendingSymbols(days, limit);
+        List<SpaceSavingSketch.ItemCount> emotions = trends.getTrendingEmotions(days, limit);
+
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartObject();
+            gen.writeNumberField("days", days);
+            gen.writeNumberField("retainedDays", trends.getRetainedDays());
+            writeItemCounts(gen, "symbols", symbols);
+            writeItemCounts(gen, "emotions", emotions);
+            gen.writeEndObject();
+        });
+    }
+
+    private void handleQueryStatistics(HttpExchange exchange) throws IOException {
+        QueryStatistics statistics = databaseService.getQueryStatistics();
+        sendJson(exchange, 200, gen -> {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("statements");
+            for (QueryStatistics.StatementStats stats : statistics.getStatementStats()) {
+                gen.writeStartObject();
+                gen.writeStringField("sql", stats.getSql());
+                gen.writeNumberField("calls", stats.getCalls());
+                gen.writeNumberField("totalMillis", stats.getTotalNanos() / 1_000_000.0);
+                gen.writeNumberField("meanMillis", stats.getMeanMillis());
+                gen.writeNumberField("maxMillis", stats.getMaxNanos() / 1_000_000.0);
+                gen.writeNumberField("rows", stats.getTotalRows());
+                gen.writeNumberField("errors", stats.getErrors());
+                if (stats.getLastError() != null) {
+                    gen.writeStringField("lastError", stats.getLastError());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("slowQueries");
+            for (QueryStatistics.SlowQuery slow : statistics.getSlowQueries()) {
+                gen.writeStartObject();
+                gen.writeStringField("sql", slow.getSql());
+                gen.writeStringField("parameters", slow.getParameterShape());
+                gen.writeNumberField("elapsedMillis", slow.getElapsedMillis());
+                gen.writeNumberField("rows", slow.getRowCount());
+                gen.writeStringField("timestamp", slow.getTimestamp().toString());
+                if (slow.getPlan() != null) {
+                    gen.writeStringField("plan", slow.getPlan());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+    }
+
+    // ===== REQUEST PARSING =====
+
+    private DreamEntry readDream(HttpExchange exchange, int userId) throws IOException {
+        JsonNode body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new ApiException(400, "Request body must be valid JSON");
+        }
+
+        if (body == null || !body.hasNonNull("dreamText") || body.get("dreamText").asText().isBlank()) {
+            throw new ApiException(400, "Field 'dreamText' is required");
+        }
+
+        LocalDate dreamDate;
+        try {
+            dreamDate = body.hasNonNull("dreamDate") ? LocalDate.parse(body.get("dreamDate").asText()) : LocalDate.now();
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Field 'dreamDate' must be an ISO date (yyyy-MM-dd)");
+        }
+
+        int sleepQuality = body.path("sleepQuality").asInt(5);
+        int lucidityLevel = body.path("lucidityLevel").asInt(0);
+        if (sleepQuality < 1 || sleepQuality > 10 || lucidityLevel < 0 || lucidityLevel > 5) {
+            throw new ApiException(400, "sleepQuality must be 1-10 and lucidityLevel 0-5");
+        }
+
+        return new DreamEntry(userId, body.get("dreamText").asText().trim(), dreamDate, sleepQuality, lucidityLevel);
+    }
+
+    private DreamEntry findOwnedDream(int dreamId, int userId) throws Exception {
+        DreamEntry dream = repository.getDream(dreamId);
+        // Other users' dreams are reported as missing rather than forbidden
+        if (dream == null || dream.getUserId() != userId) {
+            throw new ApiException(404, "Dream " + dreamId + " not found");
+        }
+        return dream;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int parseId(String value, String name) {
+        try {
+            int id = Integer.parseInt(value);
+            if (id <= 0) throw new NumberFormatException();
+            return id;
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static int parseLimit(String value, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid number: " + value);
+        }
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!actual.equals(expected)) {
+            throw new ApiException(405, "Method " + actual + " not allowed");
+        }
+    }
+
+    // ===== RESPONSE WRITING =====
+
+    private void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        // Length 0 selects chunked encoding, so the generator streams straight to the socket
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream out = exchange.getResponseBody();
+             JsonGenerator gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            // Closing would otherwise add the missing brackets to a body that failed midway
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            body.write(gen);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // Headers already went out with a streamed body; a second status cannot be sent
+            System.err.println("API request failed after its response started: " + message);
+            return;
+        }
+        sendJson(exchange, status, gen -> {
+            gen.writeStartObject();
+            gen.writeNumberField("status", status);
+            gen.writeStringField("error", message);
+            gen.writeEndObject();
+        });
+    }
+
+    private static void writeDream(JsonGenerator gen, DreamEntry dream) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", dream.getId());
+        gen.writeNumberField("userId", dream.getUserId());
+        gen.writeStringField("dreamText", dream.getDreamText());
+        gen.writeStringField("dreamDate", String.valueOf(dream.getDreamDate()));
+        gen.writeNumberField("sleepQuality", dream.getSleepQuality());
+        gen.writeNumberField("lucidityLevel", dream.getLucidityLevel());
+        gen.writeEndObject();
+    }
+
+    private static void writeAnalysis(JsonGenerator gen, AnalysisResult result) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", result.getId());
+        gen.writeNumberField("dreamId", result.getDreamId());
+        gen.writeStringField("dominantEmotion", result.getDominantEmotion());
+        gen.writeNumberField("emotionScore", result.getEmotionScore());
+        gen.writeNumberField("confidenceScore", result.getConfidenceScore());
+
+        gen.writeArrayFieldStart("symbols");
+        if (result.getSymbolsDetected() != null) {
+            for (String symbol : result.getSymbolsDetected()) {
+                gen.writeString(symbol);
+            }
+        }
+        gen.writeEndArray();
+
+        if (result.getEmotionBreakdown() != null) {
+            gen.writeObjectFieldStart("emotions");
+            for (Map.Entry<String, Double> emotion : result.getEmotionBreakdown().entrySet()) {
+                gen.writeNumberField(emotion.getKey(), emotion.getValue());
+            }
+            gen.writeEndObject();
+        }
+
+        // Absent from summary projections
+        if (result.getInterpretationText() != null) {
+            gen.writeStringField("interpretation", result.getInterpretationText());
+        }
+        if (result.getAnalysisTimestamp() != null) {
+            gen.writeStringField("analysisTimestamp", result.getAnalysisTimestamp().toString());
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeCounts(JsonGenerator gen, String field, Map<String, Integer> counts) throws IOException {
+        gen.writeObjectFieldStart(field);
+        if (counts != null) {
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                gen.writeNumberField(entry.getKey(), entry.getValue());
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeItemCounts(JsonGenerator gen, String field, List<SpaceSavingSketch.ItemCount> items) throws IOException {
+        gen.writeArrayFieldStart(field);
+        for (SpaceSavingSketch.ItemCount item : items) {
+            gen.writeStartObject();
+            gen.writeStringField("name", item.getItem());
+            gen.writeNumberField("count", item.getCount());
+            gen.writeNumberField("error", item.getError());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private static class ApiException extends RuntimeException {
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.lucidia.lucidia.server;
+
+import com.lucidia.lucidia.service.ConnectionPool;
+import com.lucidia.lucidia.service.DatabaseService;
+import com.lucidia.lucidia.util.DatabaseConfig;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless entry point that serves dreams, analysis, search and statistics
+ * over HTTP without starting JavaFX.
+ *
+ * <p>Run with {@code java -m com.lucidia.dreamoracle/com.lucidia.lucidia.server.LucidiaServer [port]}.
+ * Clients authenticate with bearer tokens listed in {@link ApiTokens#DEFAULT_FILE}.
+ */
+public class LucidiaServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int ACCEPT_BACKLOG = 4096;
+    // Only used when virtual threads are unavailable (runtimes before Java 21)
+    private static final int PLATFORM_THREADS = Integer.getInteger("lucidia.server.threads", 256);
+    private static final int PLATFORM_QUEUE_CAPACITY = 10_000;
+    // Requests share this many PostgreSQL connections, and wait this long for one before getting a 503
+    private static final int POOL_SIZE = Integer.getInteger("lucidia.server.poolSize", 16);
+    private static final long POOL_TIMEOUT_MS = Long.getLong("lucidia.server.poolTimeoutMillis", 2_000);
+
+    private final HttpServer httpServer;
+    private final ExecutorService requestExecutor;
+    private final ConnectionPool connectionPool;
+
+    public LucidiaServer(int port, ApiTokens tokens) throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        this.requestExecutor = createRequestExecutor();
+        // Without one, every request would queue on the desktop's single shared connection
+        this.connectionPool = "postgres".equals(DatabaseConfig.REPOSITORY_BACKEND)
+                ? new ConnectionPool(DatabaseService.getInstance(), POOL_SIZE, POOL_TIMEOUT_MS)
+                : null;
+
+        httpServer.createContext("/api/", new DreamApiHandler(tokens, connectionPool));
+        httpServer.setExecutor(requestExecutor);
+    }
+
+    public void start() {
+        httpServer.start();
+        System.out.println("Lucidia API listening on port " + httpServer.getAddress().getPort());
+    }
+
+    public void stop() {
+        httpServer.stop(2);
+        requestExecutor.shutdown();
+        try {
+            if (!requestExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                requestExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            requestExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    /**
+     * One virtual thread per request when the runtime supports it; otherwise a
+     * bounded platform pool that pushes back on the accept thread when saturated.
+     */
+    static ExecutorService createRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            System.out.println("Serving requests on virtual threads");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return new ThreadPoolExecutor(
+                    PLATFORM_THREADS, PLATFORM_THREADS,
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(PLATFORM_QUEUE_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "lucidia-http-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("lucidia.port", DEFAULT_PORT);
+
+        if ("postgres".equals(DatabaseConfig.REPOSITORY_BACKEND)) {
+            DatabaseService.getInstance().initialize();
+        }
+
+        LucidiaServer server = new LucidiaServer(port, ApiTokens.load(ApiTokens.DEFAULT_FILE));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "lucidia-shutdown"));
+        server.start();
+    }
+}
@@ -0,0 +1,166 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Loads large journals through PostgreSQL {@code COPY} instead of one
+ * {@code INSERT} round trip per dream. Entries are streamed from the source
+ * and sent in chunks, so memory use is bounded by the chunk size.
+ */
+public class BulkImportService {
+    private static final int DEFAULT_CHUNK_SIZE = 5_000;
+
+    private static final String COPY_DREAMS_SQL =
+            "COPY dream_entries (user_id, dream_text, dream_date, sleep_quality, lucidity_level) FROM STDIN (FORMAT csv)";
+
+    // Rows are staged when callers need their generated ids, e.g. to queue them for analysis
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE IF NOT EXISTS dream_import_staging (" +
+            "user_id INTEGER, dream_text TEXT, dream_date DATE, sleep_quality INTEGER, lucidity_level INTEGER) " +
+            "ON COMMIT DELETE ROWS";
+    private static final String COPY_STAGING_SQL =
+            "COPY dream_import_staging (user_id, dream_text, dream_date, sleep_quality, lucidity_level) FROM STDIN (FORMAT csv)";
+    private static final String INSERT_FROM_STAGING_SQL =
+            "INSERT INTO dream_entries (user_id, dream_text, dream_date, sleep_quality, lucidity_level) " +
+            "SELECT user_id, dream_text, dream_date, sleep_quality, lucidity_level FROM dream_import_staging " +
+            "RETURNING id, user_id, dream_text, dream_date, sleep_quality, lucidity_level";
+
+    private final DatabaseService databaseService;
+    private final int chunkSize;
+
+    public BulkImportService() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkImportService(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.databaseService = DatabaseService.getInstance();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copies every entry from {@code source} into {@code dream_entries}.
+     *
+     * @param onImported called with each stored dream (id populated) after its
+     *                   chunk commits, or null when ids are not needed
+     * @return the number of dreams imported
+     */
+    public long importDreams(Iterator<DreamEntry> source, Consumer<DreamEntry> onImported) throws SQLException, IOException {
+        Set<Integer> touchedUsers = new HashSet<>();
+        StringBuilder chunk = new StringBuilder(chunkSize * 256);
+        int rowsInChunk = 0;
+        long imported = 0;
+
+        // A dedicated connection keeps COPY and the chunk transactions away from
+        // work running concurrently on the shared one, such as queued analyses
+        try (Connection connection = databaseService.openConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            if (onImported != null) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(CREATE_STAGING_SQL);
+                }
+                connection.setAutoCommit(false);
+            }
+
+            while (source.hasNext()) {
+                DreamEntry dream = source.next();
+                appendCsvRow(chunk, dream);
+                touchedUsers.add(dream.getUserId());
+
+                if (++rowsInChunk == chunkSize) {
+                    imported += flushChunk(connection, copyManager, chunk, rowsInChunk, onImported);
+                    chunk.setLength(0);
+                    rowsInChunk = 0;
+                    System.out.println("Bulk import: " + imported + " dreams copied");
+                }
+            }
+            if (rowsInChunk > 0) {
+                imported += flushChunk(connection, copyManager, chunk, rowsInChunk, onImported);
+            }
+        } finally {
+            // Copied around the repository; listeners drop what they hold and rebuild lazily
+            for (int userId : touchedUsers) {
+                DreamRepositories.changes().onUserChanged(userId);
+            }
+        }
+        return imported;
+    }
+
+    private long flushChunk(Connection connection, CopyManager copyManager, StringBuilder chunk, int rows,
+                            Consumer<DreamEntry> onImported) throws SQLException, IOException {
+        long start = System.nanoTime();
+        if (onImported == null) {
+            long copied;
+            try {
+                copied = copyManager.copyIn(COPY_DREAMS_SQL, new StringReader(chunk.toString()));
+            } catch (SQLException e) {
+                databaseService.recordFailure(COPY_DREAMS_SQL, e);
+                throw e;
+            }
+            databaseService.recordQuery(COPY_DREAMS_SQL, List.of(), (int) copied, start);
+            return copied;
+        }
+
+        // Stage, move into dream_entries and read back the generated ids in one transaction
+        List<DreamEntry> stored = new ArrayList<>(rows);
+        try {
+            copyManager.copyIn(COPY_STAGING_SQL, new StringReader(chunk.toString()));
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(INSERT_FROM_STAGING_SQL)) {
+                while (rs.next()) {
+                    DreamEntry dream = new DreamEntry(
+                            rs.getInt("user_id"),
+                            rs.getString("dream_text"),
+                            rs.getDate("dream_date").toLocalDate(),
+                            rs.getInt("sleep_quality"),
+                            rs.getInt("lucidity_level")
+                    );
+                    dream.setId(rs.getInt("id"));
+                    stored.add(dream);
+                }
+            }
+            connection.commit();
+        } catch (SQLException | IOException e) {
+            if (e instanceof SQLException sqlError) {
+                databaseService.recordFailure(INSERT_FROM_STAGING_SQL, sqlError);
+            }
+            connection.rollback();
+            throw e;
+        }
+        databaseService.recordQuery(INSERT_FROM_STAGING_SQL, List.of(), stored.size(), start);
+
+        stored.forEach(onImported);
+        return stored.size();
+    }
+
+    private static void appendCsvRow(StringBuilder out, DreamEntry dream) {
+        out.append(dream.getUserId()).append(',');
+        appendCsvField(out, dream.getDreamText());
+        out.append(',').append(dream.getDreamDate())
+                .append(',').append(dream.getSleepQuality())
+                .append(',').append(dream.getLucidityLevel())
+                .append('\n');
+    }
+
+    // Quote every text value so commas, quotes and newlines survive COPY's CSV parser
+    private static void appendCsvField(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.append('"');
+            if (c != '\0') out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,162 @@
+package com.lucidia.lucidia.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded set of connections, each with its own {@link StatementCache}, for
+ * callers that would otherwise all queue on the shared connection. Work runs
+ * inside a {@link Scope}: the first statement {@link DatabaseService} issues
+ * on that thread borrows a connection, and closing the scope returns it, so
+ * work that never reaches the database never holds one.
+ *
+ * <pre>
+ * try (ConnectionPool.Scope scope = pool.open()) {
+ *     ... DatabaseService calls on this thread use one pooled connection ...
+ * }
+ * </pre>
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final DatabaseService databaseService;
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    public ConnectionPool(DatabaseService databaseService, int maxSize, long acquireTimeoutMillis) {
+        this.databaseService = databaseService;
+        this.permits = new Semaphore(maxSize, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /** Starts a scope on the calling thread; scopes do not nest. */
+    public Scope open() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A connection scope is already open on this thread");
+        }
+        Scope scope = new Scope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Borrows the calling thread's connection now rather than at its first
+     * statement, for callers that must learn the pool is busy before they
+     * commit to a response. Does nothing outside a scope.
+     */
+    public static void reserve() throws SQLException {
+        current();
+    }
+
+    // The connection for the calling thread's scope, borrowed on first use; null outside a scope
+    static Pooled current() throws SQLException {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope.borrow() : null;
+    }
+
+    private Pooled acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No database connection free within "
+                        + acquireTimeoutMillis + " ms", "08004");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection", "08004", e);
+        }
+
+        try {
+            while (true) {
+                Pooled pooled;
+                synchronized (idle) {
+                    pooled = idle.pollFirst();
+                }
+                if (pooled == null) {
+                    Connection connection = databaseService.openConnection();
+                    return new Pooled(connection, new StatementCache(connection));
+                }
+                if (pooled.connection.isValid(1)) {
+                    return pooled;
+                }
+                pooled.close();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Pooled pooled) {
+        try {
+            if (!closed && !pooled.connection.isClosed() && pooled.connection.getAutoCommit()) {
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+                return;
+            }
+        } catch (SQLException e) {
+            // Fall through and discard the connection
+        } finally {
+            permits.release();
+        }
+        pooled.close();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            idle.forEach(Pooled::close);
+            idle.clear();
+        }
+    }
+
+    /** One thread's use of the pool; returns its connection, if it borrowed one, when closed. */
+    public final class Scope implements AutoCloseable {
+        private Pooled pooled;
+
+        private Scope() {}
+
+        private Pooled borrow() throws SQLException {
+            if (pooled == null) {
+                pooled = acquire();
+            }
+            return pooled;
+        }
+
+        @Override
+        public void close() {
+            CURRENT.remove();
+            if (pooled != null) {
+                release(pooled);
+                pooled = null;
+            }
+        }
+    }
+
+    static final class Pooled {
+        final Connection connection;
+        final StatementCache statementCache;
+
+        private Pooled(Connection connection, StatementCache statementCache) {
+            this.connection = connection;
+            this.statementCache = statementCache;
+        }
+
+        private void close() {
+            statementCache.close();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already broken
+            }
+        }
+    }
+}
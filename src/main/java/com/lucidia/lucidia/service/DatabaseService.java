@@ -1,18 +1,45 @@
 package com.lucidia.lucidia.service;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.time.LocalDate;
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DailyDreamSummary;
 import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DreamStatistics;
+import com.lucidia.lucidia.repository.AnalysisPage;
+import com.lucidia.lucidia.repository.AnalysisSink;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
 import com.lucidia.lucidia.util.DatabaseConfig;
 
 public class DatabaseService {
     private static DatabaseService instance;
+    private static final String DREAM_COLUMNS_SELECT =
+            "SELECT id, user_id, dream_text, dream_date, sleep_quality, lucidity_level FROM dream_entries";
+    private static final String ANALYSIS_SUMMARY_COLUMNS =
+            "da.id, da.dream_id, da.emotion_score, da.dominant_emotion, da.symbols_detected, da.confidence_score, da.analysis_timestamp";
+    private static final String ANALYSIS_COLUMNS = ANALYSIS_SUMMARY_COLUMNS + ", da.interpretation_text";
+    private static final int HISTORY_FETCH_SIZE = 500;
     private Connection connection;
+    private StatementCache statementCache;
+    private final QueryStatistics queryStatistics = new QueryStatistics(
+            DatabaseConfig.SLOW_QUERY_THRESHOLD_MS,
+            DatabaseConfig.EXPLAIN_SLOW_QUERIES,
+            this::openConnection
+    );
 
     private DatabaseService() {}
 
-    public static DatabaseService getInstance() {
+    public static synchronized DatabaseService getInstance() {
         if (instance == null) {
             instance = new DatabaseService();
         }
@@ -23,26 +50,106 @@ public class DatabaseService {
         return this.connection;
     }
 
-    public void initialize() throws SQLException {
-        connection = DriverManager.getConnection(
-                DatabaseConfig.DB_URL,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-        );
+    public QueryStatistics getQueryStatistics() {
+        return queryStatistics;
+    }
+
+    // Statements on the shared connection should be checked out here rather than prepared per call
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    // Records latency and row count for a statement started at startNanos
+    void recordQuery(String sql, List<?> parameters, int rowCount, long startNanos) {
+        queryStatistics.record(sql, parameters, rowCount, System.nanoTime() - startNanos);
+    }
+
+    // Inside a ConnectionPool scope statements run on its pooled connection, otherwise on the shared one
+    private Connection connection() throws SQLException {
+        ConnectionPool.Pooled pooled = ConnectionPool.current();
+        return pooled != null ? pooled.connection : connection;
+    }
+
+    private StatementCache statements() throws SQLException {
+        ConnectionPool.Pooled pooled = ConnectionPool.current();
+        return pooled != null ? pooled.statementCache : statementCache;
+    }
+
+    // Counts a statement that threw; callers rethrow the error afterwards
+    void recordFailure(String sql, SQLException error) {
+        queryStatistics.recordFailure(sql, error);
+    }
+
+    /**
+     * Opens the shared connection and bootstraps the schema. Safe to call
+     * again after the database was unreachable; a previous connection is
+     * closed first.
+     */
+    public synchronized void initialize() throws SQLException {
+        Connection opened = openConnection();
+        try {
+            new SchemaManager(opened).bootstrap();
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+        if (statementCache != null) {
+            statementCache.close();
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // The old connection is usually already broken
+            }
+        }
+        connection = opened;
+        statementCache = new StatementCache(connection);
         System.out.println("Connected to PostgreSQL database!");
     }
 
+    // Whether the shared connection exists and still answers
+    public boolean isConnected() {
+        Connection current = connection;
+        try {
+            return current != null && current.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a connection separate from the shared one, for long-running work
+     * (bulk loads, transactions) that must not interleave with other callers.
+     * The caller owns and closes it.
+     */
+    public Connection openConnection() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", DatabaseConfig.DB_USER);
+        properties.setProperty("password", DatabaseConfig.DB_PASSWORD);
+        // Cached statements switch to a named server-side statement on their second
+        // execution, after which the server skips parse and plan for every call
+        properties.setProperty("prepareThreshold", String.valueOf(DatabaseConfig.PREPARE_THRESHOLD));
+        properties.setProperty("preparedStatementCacheQueries", String.valueOf(DatabaseConfig.DRIVER_STATEMENT_CACHE_QUERIES));
+        properties.setProperty("preparedStatementCacheSizeMiB", "8");
+        return DriverManager.getConnection(DatabaseConfig.DB_URL, properties);
+    }
+
     public int saveDreamEntry(DreamEntry dream) throws SQLException {
         String sql = "INSERT INTO dream_entries (user_id, dream_text, dream_date, sleep_quality, lucidity_level) VALUES (?, ?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (StatementCache.Lease lease = statements().checkoutReturningKeys(sql)) {
+            PreparedStatement stmt = lease.getStatement();
             stmt.setInt(1, dream.getUserId());
             stmt.setString(2, dream.getDreamText());
             stmt.setDate(3, Date.valueOf(dream.getDreamDate()));
             stmt.setInt(4, dream.getSleepQuality());
             stmt.setInt(5, dream.getLucidityLevel());
 
+            long start = System.nanoTime();
             int affectedRows = stmt.executeUpdate();
+            recordQuery(sql, Arrays.asList(dream.getUserId(), dream.getDreamText(), dream.getDreamDate(),
+                    dream.getSleepQuality(), dream.getLucidityLevel()), affectedRows, start);
 
             if (affectedRows == 0) {
                 throw new SQLException("Creating dream entry failed, no rows affected.");
@@ -57,84 +164,828 @@ public class DatabaseService {
                     throw new SQLException("Creating dream entry failed, no ID obtained.");
                 }
             }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
         }
     }
 
-    public List<DreamEntry> getAllDreams(int userId) throws SQLException {
-        return getDreamEntries(null, "All Dreams", userId);
+    /**
+     * Saves several dreams in one round trip and returns their ids in input
+     * order. Each dream gets a fresh client reference.
+     */
+    public List<Integer> saveDreamEntries(List<DreamEntry> dreams) throws SQLException {
+        List<UUID> clientRefs = new ArrayList<>(dreams.size());
+        for (int i = 0; i < dreams.size(); i++) {
+            clientRefs.add(UUID.randomUUID());
+        }
+        List<Integer> ids = saveDreamEntries(connection(), dreams, clientRefs);
+        // Stored outside the repository, so its listeners are told here
+        dreams.forEach(DreamRepositories.changes()::onDreamSaved);
+        return ids;
     }
 
-    public List<DreamEntry> getDreamEntries(String searchText, String filter, int userId) throws SQLException {
-        List<DreamEntry> dreams = new ArrayList<>();
-        StringBuilder sql = new StringBuilder(
-                "SELECT * FROM dream_entries WHERE user_id = ?"
-        );
-        List<Object> parameters = new ArrayList<>();
-        parameters.add(userId);
+    /**
+     * Batch insert keyed by client reference. A single statement is atomic even
+     * in autocommit mode, and a dream whose reference was already stored keeps
+     * its existing row, so replaying a batch after a failure is safe.
+     */
+    List<Integer> saveDreamEntries(Connection target, List<DreamEntry> dreams, List<UUID> clientRefs) throws SQLException {
+        String sql = """
+            INSERT INTO dream_entries (client_ref, user_id, dream_text, dream_date, sleep_quality, lucidity_level)
+            SELECT * FROM unnest(?::uuid[], ?::int[], ?::text[], ?::date[], ?::int[], ?::int[])
+            ON CONFLICT (client_ref) WHERE client_ref IS NOT NULL
+            DO UPDATE SET client_ref = EXCLUDED.client_ref
+            RETURNING id, client_ref
+            """;
 
-        // Add search filter
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            sql.append(" AND dream_text ILIKE ?");
-            parameters.add("%" + searchText + "%");
+        int size = dreams.size();
+        String[] refs = new String[size];
+        Integer[] userIds = new Integer[size];
+        String[] texts = new String[size];
+        String[] dates = new String[size];
+        Integer[] sleepQualities = new Integer[size];
+        Integer[] lucidityLevels = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            DreamEntry dream = dreams.get(i);
+            refs[i] = clientRefs.get(i).toString();
+            userIds[i] = dream.getUserId();
+            texts[i] = dream.getDreamText();
+            dates[i] = dream.getDreamDate().toString();
+            sleepQualities[i] = dream.getSleepQuality();
+            lucidityLevels[i] = dream.getLucidityLevel();
+        }
+
+        Map<String, Integer> idsByRef = new HashMap<>(size * 2);
+        try (PreparedStatement stmt = target.prepareStatement(sql)) {
+            stmt.setArray(1, target.createArrayOf("text", refs));
+            stmt.setArray(2, target.createArrayOf("int4", userIds));
+            stmt.setArray(3, target.createArrayOf("text", texts));
+            stmt.setArray(4, target.createArrayOf("text", dates));
+            stmt.setArray(5, target.createArrayOf("int4", sleepQualities));
+            stmt.setArray(6, target.createArrayOf("int4", lucidityLevels));
+
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    idsByRef.put(rs.getString("client_ref"), rs.getInt("id"));
+                }
+            }
+            recordQuery(sql, List.of(size), idsByRef.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+
+        List<Integer> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Integer id = idsByRef.get(refs[i]);
+            if (id == null) {
+                throw new SQLException("Batch save returned no id for dream " + (i + 1) + " of " + size);
+            }
+            dreams.get(i).setId(id);
+            ids.add(id);
         }
+        return ids;
+    }
+
+    public List<DreamEntry> getAllDreams(int userId) throws SQLException {
+        return getDreamEntries(null, "All Dreams", userId);
+    }
 
-        // Add time filter
+    /**
+     * Lists a user's dreams. Search and filter choices map onto a fixed set of
+     * SQL shapes with the variable parts bound as parameters, so every shape is
+     * prepared once and reused instead of generating new SQL per call.
+     */
+    public List<DreamEntry> getDreamEntries(String searchText, String filter, int userId) throws SQLException {
+        boolean hasSearch = searchText != null && !searchText.trim().isEmpty();
+        String condition = "";
+        LocalDate since = null;
         if (filter != null) {
             switch (filter) {
                 case "Last 7 Days":
-                    sql.append(" AND dream_date >= CURRENT_DATE - INTERVAL '7 days'");
+                    condition = " AND dream_date >= ?";
+                    since = LocalDate.now().minusDays(7);
                     break;
                 case "Last 30 Days":
-                    sql.append(" AND dream_date >= CURRENT_DATE - INTERVAL '30 days'");
+                    condition = " AND dream_date >= ?";
+                    since = LocalDate.now().minusDays(30);
                     break;
                 case "High Lucidity":
-                    sql.append(" AND lucidity_level >= 3");
+                    condition = " AND lucidity_level >= 3";
                     break;
                 case "Vivid Dreams":
-                    sql.append(" AND sleep_quality >= 8");
+                    condition = " AND sleep_quality >= 8";
                     break;
                 // "All Dreams" - no additional filter
             }
         }
 
-        sql.append(" ORDER BY dream_date DESC");
+        String sql = DREAM_COLUMNS_SELECT + " WHERE user_id = ?"
+                + (hasSearch ? " AND dream_text ILIKE ?" : "")
+                + condition
+                + " ORDER BY dream_date DESC";
+
+        List<Object> parameters = new ArrayList<>(3);
+        parameters.add(userId);
+        if (hasSearch) {
+            parameters.add("%" + searchText + "%");
+        }
+        if (since != null) {
+            parameters.add(since);
+        }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+        List<DreamEntry> dreams = new ArrayList<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
             for (int i = 0; i < parameters.size(); i++) {
                 stmt.setObject(i + 1, parameters.get(i));
             }
 
-            ResultSet rs = stmt.executeQuery();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dreams.add(mapDream(rs));
+                }
+            }
+            recordQuery(sql, parameters, dreams.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return dreams;
+    }
+
+    // Dreams stored after afterId, oldest first; lets the local replica pull only what is new
+    public List<DreamEntry> getDreamEntriesAfter(int userId, int afterId) throws SQLException {
+        String sql = DREAM_COLUMNS_SELECT + " WHERE user_id = ? AND id > ? ORDER BY id";
 
-            while (rs.next()) {
-                DreamEntry dream = new DreamEntry();
-                dream.setId(rs.getInt("id"));
-                dream.setUserId(rs.getInt("user_id"));
-                dream.setDreamText(rs.getString("dream_text"));
-                dream.setDreamDate(rs.getDate("dream_date").toLocalDate());
-                dream.setSleepQuality(rs.getInt("sleep_quality"));
-                dream.setLucidityLevel(rs.getInt("lucidity_level"));
-                dreams.add(dream);
+        List<DreamEntry> dreams = new ArrayList<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            stmt.setInt(2, afterId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dreams.add(mapDream(rs));
+                }
             }
+            recordQuery(sql, List.of(userId, afterId), dreams.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
         }
         return dreams;
     }
 
+    public DreamEntry getDreamEntry(int dreamId) throws SQLException {
+        String sql = DREAM_COLUMNS_SELECT + " WHERE id = ?";
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, dreamId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                DreamEntry dream = rs.next() ? mapDream(rs) : null;
+                recordQuery(sql, List.of(dreamId), dream != null ? 1 : 0, start);
+                return dream;
+            }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+    }
+
+    private DreamEntry mapDream(ResultSet rs) throws SQLException {
+        DreamEntry dream = new DreamEntry();
+        dream.setId(rs.getInt("id"));
+        dream.setUserId(rs.getInt("user_id"));
+        dream.setDreamText(rs.getString("dream_text"));
+        dream.setDreamDate(rs.getDate("dream_date").toLocalDate());
+        dream.setSleepQuality(rs.getInt("sleep_quality"));
+        dream.setLucidityLevel(rs.getInt("lucidity_level"));
+        return dream;
+    }
+
     public boolean deleteDreamEntry(int dreamId) throws SQLException {
         String sql = "DELETE FROM dream_entries WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
             stmt.setInt(1, dreamId);
-            return stmt.executeUpdate() > 0;
+            long start = System.nanoTime();
+            int affectedRows = stmt.executeUpdate();
+            recordQuery(sql, List.of(dreamId), affectedRows, start);
+            return affectedRows > 0;
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
         }
     }
 
     // Method to check if a dream exists
     public boolean dreamExists(int dreamId) throws SQLException {
         String sql = "SELECT 1 FROM dream_entries WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, dreamId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                boolean exists = rs.next();
+                recordQuery(sql, List.of(dreamId), exists ? 1 : 0, start);
+                return exists;
+            }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Ids of the user's dreams whose latest analysis detected the given
+     * symbols, either all of them ({@code @>}) or any of them ({@code &&}).
+     * Earlier analyses of a re-analyzed dream are ignored. Each dream's latest
+     * analysis is read through the (dream_id, analysis_timestamp) index.
+     */
+    public List<Integer> findDreamIdsBySymbols(int userId, Collection<String> symbols, boolean matchAll) throws SQLException {
+        if (symbols.isEmpty()) {
+            return List.of();
+        }
+        String sql = matchAll ? """
+            SELECT de.id
+            FROM dream_entries de
+            CROSS JOIN LATERAL (
+                SELECT da.symbols_detected FROM dream_analysis da
+                WHERE da.dream_id = de.id
+                ORDER BY da.analysis_timestamp DESC
+                LIMIT 1
+            ) la
+            WHERE de.user_id = ? AND la.symbols_detected @> ?
+            ORDER BY de.id DESC
+            """ : """
+            SELECT de.id
+            FROM dream_entries de
+            CROSS JOIN LATERAL (
+                SELECT da.symbols_detected FROM dream_analysis da
+                WHERE da.dream_id = de.id
+                ORDER BY da.analysis_timestamp DESC
+                LIMIT 1
+            ) la
+            WHERE de.user_id = ? AND la.symbols_detected && ?
+            ORDER BY de.id DESC
+            """;
+
+        List<Integer> dreamIds = new ArrayList<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            stmt.setArray(2, createSymbolArray(connection(), symbols));
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dreamIds.add(rs.getInt(1));
+                }
+            }
+            recordQuery(sql, Arrays.asList(userId, symbols), dreamIds.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return dreamIds;
+    }
+
+    static Array createSymbolArray(Connection connection, Collection<String> symbols) throws SQLException {
+        return connection.createArrayOf("text", symbols == null ? new String[0] : symbols.toArray(new String[0]));
+    }
+
+    static List<String> readSymbols(ResultSet rs) throws SQLException {
+        Array array = rs.getArray("symbols_detected");
+        if (array == null) {
+            return List.of();
+        }
+        try {
+            return Arrays.asList((String[]) array.getArray());
+        } finally {
+            array.free();
+        }
+    }
+
+    /**
+     * Inserts an analysis and sets its id. A missing dream is caught by the
+     * foreign key rather than checked first, saving a round trip per save.
+     */
+    public void saveAnalysisResult(AnalysisResult result) throws SQLException {
+        String sql = "INSERT INTO dream_analysis (dream_id, emotion_score, dominant_emotion, symbols_detected, interpretation_text, confidence_score) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (StatementCache.Lease lease = statements().checkoutReturningKeys(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, result.getDreamId());
+            stmt.setDouble(2, result.getEmotionScore());
+            stmt.setString(3, result.getDominantEmotion());
+
+            stmt.setArray(4, createSymbolArray(connection(), result.getSymbolsDetected()));
+
+            stmt.setString(5, result.getInterpretationText());
+            stmt.setDouble(6, result.getConfidenceScore());
+
+            long start = System.nanoTime();
+            int affectedRows;
+            try {
+                affectedRows = stmt.executeUpdate();
+            } catch (SQLException e) {
+                if (DreamRepository.DREAM_NOT_FOUND.equals(e.getSQLState())) {
+                    throw new SQLException("Cannot save analysis: Dream with ID " + result.getDreamId()
+                            + " does not exist", e.getSQLState(), e);
+                }
+                throw e;
+            }
+            recordQuery(sql, Arrays.asList(result.getDreamId(), result.getEmotionScore(),
+                    result.getDominantEmotion(), result.getSymbolsDetected(), result.getInterpretationText(),
+                    result.getConfidenceScore()), affectedRows, start);
+
+            if (affectedRows == 0) {
+                throw new SQLException("Creating analysis failed, no rows affected.");
+            }
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    result.setId(generatedKeys.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+    }
+
+    /**
+     * The latest analysis of each of the user's dreams, considering only
+     * analyses stored after {@code afterAnalysisId} (0 for all of them).
+     */
+    public List<AnalysisResult> getLatestAnalyses(int userId, int afterAnalysisId) throws SQLException {
+        List<AnalysisResult> results = new ArrayList<>();
+        String sql = """
+            SELECT DISTINCT ON (da.dream_id)
+                   da.id, da.dream_id, da.emotion_score, da.dominant_emotion, da.symbols_detected,
+                   da.interpretation_text, da.confidence_score, da.analysis_timestamp
+            FROM dream_analysis da
+            JOIN dream_entries de ON da.dream_id = de.id
+            WHERE de.user_id = ? AND da.id > ?
+            ORDER BY da.dream_id, da.analysis_timestamp DESC
+            """;
+
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            stmt.setInt(2, afterAnalysisId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapAnalysis(rs));
+                }
+            }
+            recordQuery(sql, List.of(userId, afterAnalysisId), results.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Inserts a new dream and its analysis in one statement. The dream insert
+     * runs as a data-modifying CTE feeding the analysis insert, so both rows
+     * are written in a single round trip and a single implicit transaction.
+     */
+    public void saveDreamWithAnalysis(DreamEntry dream, AnalysisResult result) throws SQLException {
+        String sql = """
+            WITH new_dream AS (
+                INSERT INTO dream_entries (user_id, dream_text, dream_date, sleep_quality, lucidity_level)
+                VALUES (?, ?, ?, ?, ?)
+                RETURNING id
+            )
+            INSERT INTO dream_analysis (dream_id, emotion_score, dominant_emotion, symbols_detected, interpretation_text, confidence_score)
+            SELECT id, ?, ?, ?, ?, ? FROM new_dream
+            RETURNING dream_id, id, analysis_timestamp
+            """;
+
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, dream.getUserId());
+            stmt.setString(2, dream.getDreamText());
+            stmt.setDate(3, Date.valueOf(dream.getDreamDate()));
+            stmt.setInt(4, dream.getSleepQuality());
+            stmt.setInt(5, dream.getLucidityLevel());
+            stmt.setDouble(6, result.getEmotionScore());
+            stmt.setString(7, result.getDominantEmotion());
+            stmt.setArray(8, createSymbolArray(connection(), result.getSymbolsDetected()));
+            stmt.setString(9, result.getInterpretationText());
+            stmt.setDouble(10, result.getConfidenceScore());
+
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Saving dream and analysis failed, no rows returned.");
+                }
+                dream.setId(rs.getInt("dream_id"));
+                result.setDreamId(dream.getId());
+                result.setId(rs.getInt("id"));
+                result.setAnalysisTimestamp(rs.getTimestamp("analysis_timestamp").toLocalDateTime());
+            }
+            recordQuery(sql, Arrays.asList(dream.getUserId(), dream.getDreamText(), dream.getDreamDate(),
+                    dream.getSleepQuality(), dream.getLucidityLevel(), result.getEmotionScore(),
+                    result.getDominantEmotion(), result.getSymbolsDetected(), result.getInterpretationText(),
+                    result.getConfidenceScore()), 1, start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+    }
+
+    public AnalysisResult getLatestAnalysis(int dreamId) throws SQLException {
+        String sql = """
+            SELECT id, dream_id, emotion_score, dominant_emotion, symbols_detected,
+                   interpretation_text, confidence_score, analysis_timestamp
+            FROM dream_analysis
+            WHERE dream_id = ?
+            ORDER BY analysis_timestamp DESC
+            LIMIT 1
+            """;
+
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
             stmt.setInt(1, dreamId);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                AnalysisResult result = rs.next() ? mapAnalysis(rs) : null;
+                recordQuery(sql, List.of(dreamId), result != null ? 1 : 0, start);
+                return result;
+            }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+    }
+
+    /**
+     * One page of a user's analysis history, newest first, using keyset
+     * pagination on (analysis_timestamp, id): each page starts strictly after
+     * the previous page's last row instead of skipping an OFFSET.
+     *
+     * @param after        cursor from the previous page, or null for the first
+     * @param summaryOnly  leave out the interpretation text, by far the largest column
+     */
+    public AnalysisPage getAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                               boolean summaryOnly) throws SQLException {
+        String sql = "SELECT " + (summaryOnly ? ANALYSIS_SUMMARY_COLUMNS : ANALYSIS_COLUMNS)
+                + " FROM dream_analysis da JOIN dream_entries de ON da.dream_id = de.id"
+                + " WHERE de.user_id = ?"
+                + (after != null ? " AND (da.analysis_timestamp, da.id) < (?, ?)" : "")
+                + " ORDER BY da.analysis_timestamp DESC, da.id DESC LIMIT ?";
+
+        List<Object> parameters = new ArrayList<>(4);
+        parameters.add(userId);
+        if (after != null) {
+            parameters.add(Timestamp.valueOf(after.getTimestamp()));
+            parameters.add(after.getId());
+        }
+        // One extra row tells whether another page follows
+        parameters.add(limit + 1);
+
+        List<AnalysisResult> results = new ArrayList<>(limit + 1);
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapAnalysis(rs, !summaryOnly));
+                }
+            }
+            recordQuery(sql, parameters, results.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+
+        if (results.size() <= limit) {
+            return new AnalysisPage(results, null);
+        }
+        List<AnalysisResult> page = new ArrayList<>(results.subList(0, limit));
+        return new AnalysisPage(page, AnalysisPage.Cursor.after(page.get(limit - 1)));
+    }
+
+    /**
+     * Streams a user's whole analysis history, newest first, through a
+     * server-side cursor. Only one fetch batch is held in memory at a time,
+     * however long the history is.
+     */
+    public void streamAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException {
+        String sql = "SELECT " + (summaryOnly ? ANALYSIS_SUMMARY_COLUMNS : ANALYSIS_COLUMNS)
+                + " FROM dream_analysis da JOIN dream_entries de ON da.dream_id = de.id"
+                + " WHERE de.user_id = ?"
+                + " ORDER BY da.analysis_timestamp DESC, da.id DESC";
+
+        // pgjdbc only uses a cursor inside a transaction, so it never runs on the shared connection.
+        // A pooled connection is borrowed for it and handed back in autocommit mode
+        ConnectionPool.Pooled pooled = ConnectionPool.current();
+        Connection cursorConnection = pooled != null ? pooled.connection : openConnection();
+        long start = System.nanoTime();
+        int rows = 0;
+        try {
+            cursorConnection.setAutoCommit(false);
+            cursorConnection.setReadOnly(true);
+            try (PreparedStatement stmt = cursorConnection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(HISTORY_FETCH_SIZE);
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(mapAnalysis(rs, !summaryOnly));
+                        rows++;
+                    }
+                }
+            } finally {
+                try {
+                    cursorConnection.rollback();
+                    if (pooled != null) {
+                        cursorConnection.setReadOnly(false);
+                        cursorConnection.setAutoCommit(true);
+                    }
+                } finally {
+                    if (pooled == null) {
+                        cursorConnection.close();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        recordQuery(sql, List.of(userId), rows, start);
+    }
+
+    private AnalysisResult mapAnalysis(ResultSet rs) throws SQLException {
+        return mapAnalysis(rs, true);
+    }
+
+    private AnalysisResult mapAnalysis(ResultSet rs, boolean withInterpretation) throws SQLException {
+        AnalysisResult result = new AnalysisResult();
+        result.setId(rs.getInt("id"));
+        result.setDreamId(rs.getInt("dream_id"));
+        result.setEmotionScore(rs.getDouble("emotion_score"));
+        result.setDominantEmotion(rs.getString("dominant_emotion"));
+        result.setSymbolsDetected(readSymbols(rs));
+        if (withInterpretation) {
+            result.setInterpretationText(rs.getString("interpretation_text"));
+        }
+        result.setConfidenceScore(rs.getDouble("confidence_score"));
+        Timestamp timestamp = rs.getTimestamp("analysis_timestamp");
+        result.setAnalysisTimestamp(timestamp != null ? timestamp.toLocalDateTime() : null);
+        return result;
+    }
+
+    // Every stored analysis of the user's dreams, newest first
+    public List<AnalysisResult> getUserAnalysisHistory(int userId) throws SQLException {
+        List<AnalysisResult> results = new ArrayList<>();
+        String sql = """
+            SELECT da.id, da.dream_id, da.emotion_score, da.dominant_emotion, da.symbols_detected,
+                   da.interpretation_text, da.confidence_score, da.analysis_timestamp
+            FROM dream_analysis da
+            JOIN dream_entries de ON da.dream_id = de.id
+            WHERE de.user_id = ?
+            ORDER BY da.analysis_timestamp DESC, da.id DESC
+            """;
+
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapAnalysis(rs));
+                }
+            }
+            recordQuery(sql, List.of(userId), results.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+
+        return results;
+    }
+
+    /**
+     * Counts, averages and streaks for a user computed entirely in the database.
+     * Streaks use a gaps-and-islands pass: consecutive days share the same
+     * (date - row_number) value, so each group is one unbroken streak.
+     */
+    public DreamStatistics getDreamAggregates(int userId, LocalDate today) throws SQLException {
+        String sql = """
+            WITH user_dreams AS (
+                SELECT dream_date, sleep_quality, lucidity_level
+                FROM dream_entries
+                WHERE user_id = ?
+            ),
+            islands AS (
+                SELECT dream_date, dream_date - (ROW_NUMBER() OVER (ORDER BY dream_date))::int AS island
+                FROM (SELECT DISTINCT dream_date FROM user_dreams) days
+            ),
+            streaks AS (
+                SELECT COUNT(*) AS length, MAX(dream_date) AS last_day
+                FROM islands
+                GROUP BY island
+            )
+            SELECT COUNT(*) AS total_dreams,
+                   COUNT(*) FILTER (WHERE dream_date >= ?) AS dreams_this_month,
+                   COUNT(*) FILTER (WHERE dream_date >= ?) AS dreams_this_week,
+                   COALESCE(AVG(sleep_quality), 0) AS average_sleep_quality,
+                   COALESCE(AVG(lucidity_level), 0) AS average_lucidity,
+                   (SELECT COALESCE(MAX(length), 0) FROM streaks) AS longest_streak,
+                   (SELECT COALESCE(MAX(length) FILTER (WHERE last_day = ?), 0) FROM streaks) AS current_streak
+            FROM user_dreams
+            """;
+
+        List<Object> parameters = List.of(
+                userId,
+                Date.valueOf(today.withDayOfMonth(1)),
+                Date.valueOf(today.minusDays(7)),
+                Date.valueOf(today)
+        );
+
+        DreamStatistics stats = new DreamStatistics();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                stats.setTotalDreams(rs.getInt("total_dreams"));
+                stats.setDreamsThisMonth(rs.getInt("dreams_this_month"));
+                stats.setDreamsThisWeek(rs.getInt("dreams_this_week"));
+                stats.setAverageSleepQuality(rs.getDouble("average_sleep_quality"));
+                stats.setAverageLucidity(rs.getDouble("average_lucidity"));
+                stats.setLongestDreamStreak(rs.getInt("longest_streak"));
+                stats.setCurrentStreak(rs.getInt("current_streak"));
+            }
+            recordQuery(sql, parameters, 1, start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+
+        stats.setDreamsPerDay(getDreamsPerDay(userId));
+        return stats;
+    }
+
+    public Map<LocalDate, Integer> getDreamsPerDay(int userId) throws SQLException {
+        String sql = "SELECT dream_date, COUNT(*) AS dream_count FROM dream_entries WHERE user_id = ? GROUP BY dream_date";
+
+        Map<LocalDate, Integer> dreamsPerDay = new HashMap<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dreamsPerDay.put(rs.getDate("dream_date").toLocalDate(), rs.getInt("dream_count"));
+                }
+            }
+            recordQuery(sql, List.of(userId), dreamsPerDay.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return dreamsPerDay;
+    }
+
+    /**
+     * Per-day dream counts and average ratings, oldest day first. The emotion
+     * score of each dream is taken from its latest analysis.
+     */
+    public List<DailyDreamSummary> getDailyTimeline(int userId) throws SQLException {
+        String sql = """
+            SELECT de.dream_date, COUNT(*) AS dream_count,
+                   AVG(de.sleep_quality) AS average_sleep_quality,
+                   AVG(la.emotion_score) AS average_emotion_score
+            FROM dream_entries de
+            LEFT JOIN LATERAL (
+                SELECT da.emotion_score FROM dream_analysis da
+                WHERE da.dream_id = de.id
+                ORDER BY da.analysis_timestamp DESC
+                LIMIT 1
+            ) la ON TRUE
+            WHERE de.user_id = ?
+            GROUP BY de.dream_date
+            ORDER BY de.dream_date
+            """;
+
+        List<DailyDreamSummary> days = new ArrayList<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    days.add(new DailyDreamSummary(
+                            rs.getDate("dream_date").toLocalDate(),
+                            rs.getInt("dream_count"),
+                            rs.getObject("average_sleep_quality") != null ? rs.getDouble("average_sleep_quality") : null,
+                            rs.getObject("average_emotion_score") != null ? rs.getDouble("average_emotion_score") : null));
+                }
+            }
+            recordQuery(sql, List.of(userId), days.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return days;
+    }
+
+    // Dominant emotion counts taken from the latest stored analysis of each dream
+    public Map<String, Integer> getAnalyzedEmotionFrequency(int userId) throws SQLException {
+        String sql = """
+            WITH latest AS (
+                SELECT DISTINCT ON (da.dream_id) da.dominant_emotion
+                FROM dream_analysis da
+                JOIN dream_entries de ON da.dream_id = de.id
+                WHERE de.user_id = ?
+                ORDER BY da.dream_id, da.analysis_timestamp DESC
+            )
+            SELECT dominant_emotion AS label, COUNT(*) AS label_count
+            FROM latest
+            GROUP BY dominant_emotion
+            """;
+        return queryLabelCounts(sql, userId);
+    }
+
+    // Symbol counts taken from the latest stored analysis of each dream
+    public Map<String, Integer> getAnalyzedSymbolFrequency(int userId) throws SQLException {
+        String sql = """
+            WITH latest AS (
+                SELECT DISTINCT ON (da.dream_id) da.symbols_detected
+                FROM dream_analysis da
+                JOIN dream_entries de ON da.dream_id = de.id
+                WHERE de.user_id = ?
+                ORDER BY da.dream_id, da.analysis_timestamp DESC
+            )
+            SELECT symbol AS label, COUNT(*) AS label_count
+            FROM latest, unnest(symbols_detected) AS symbol
+            GROUP BY symbol
+            """;
+        return queryLabelCounts(sql, userId);
+    }
+
+    // Text of dreams that have never been analyzed, so callers only run NLP on the gap
+    public List<String> getUnanalyzedDreamTexts(int userId) throws SQLException {
+        String sql = """
+            SELECT de.dream_text
+            FROM dream_entries de
+            WHERE de.user_id = ?
+              AND NOT EXISTS (SELECT 1 FROM dream_analysis da WHERE da.dream_id = de.id)
+            """;
+
+        List<String> texts = new ArrayList<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    texts.add(rs.getString("dream_text"));
+                }
+            }
+            recordQuery(sql, List.of(userId), texts.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
+        }
+        return texts;
+    }
+
+    private Map<String, Integer> queryLabelCounts(String sql, int userId) throws SQLException {
+        Map<String, Integer> counts = new HashMap<>();
+        try (StatementCache.Lease lease = statements().checkout(sql)) {
+            PreparedStatement stmt = lease.getStatement();
+            stmt.setInt(1, userId);
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String label = rs.getString("label");
+                    if (label != null) {
+                        counts.put(label, rs.getInt("label_count"));
+                    }
+                }
+            }
+            recordQuery(sql, List.of(userId), counts.size(), start);
+        } catch (SQLException e) {
+            recordFailure(sql, e);
+            throw e;
         }
+        return counts;
     }
-}
\ No newline at end of file
+}
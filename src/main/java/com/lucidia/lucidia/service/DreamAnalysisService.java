@@ -1,13 +1,23 @@
 package com.lucidia.lucidia.service;
 
 import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.AnalysisUpdate;
 import com.lucidia.lucidia.model.DreamEntry;
-import java.sql.*;
+import com.lucidia.lucidia.repository.AnalysisPage;
+import com.lucidia.lucidia.repository.AnalysisSink;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
+import com.lucidia.lucidia.util.AppExecutors;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
 
 public class DreamAnalysisService {
-    private final DatabaseService databaseService;
+    private final DreamRepository repository;
     private final NLPService nlpService;
 
     // Dream symbol meanings based on common psychological interpretations
@@ -25,62 +35,168 @@ public class DreamAnalysisService {
     );
 
     public DreamAnalysisService() {
-        this.databaseService = DatabaseService.getInstance();
+        this(DreamRepositories.getDefault());
+    }
+
+    public DreamAnalysisService(DreamRepository repository) {
+        this.repository = repository;
         this.nlpService = new NLPService();
     }
 
+    /**
+     * Analyzes a dream and stores the result. NLP runs before anything is
+     * written, then a single repository call persists the outcome: the
+     * analysis alone for a stored dream, or the dream and its analysis
+     * together, atomically, for a new one.
+     */
     public AnalysisResult performFullAnalysis(DreamEntry dream) {
-        try {
-            // First, save the dream entry to get a valid ID
-            int dreamId;
-            if (dream.getId() <= 0) {
-                dreamId = databaseService.saveDreamEntry(dream);
-                dream.setId(dreamId);
-            } else {
-                dreamId = dream.getId();
-                if (!databaseService.dreamExists(dreamId)) {
-                    dreamId = databaseService.saveDreamEntry(dream);
-                    dream.setId(dreamId);
-                }
-            }
+        return performFullAnalysis(dream, null);
+    }
 
+    /**
+     * Same as {@link #performFullAnalysis(DreamEntry)}, also publishing each
+     * stage to {@code updates} the moment it is ready: emotions, symbols,
+     * interpretation, then the stored result. The analysis runs on the calling
+     * thread; updates are delivered on the CPU pool, which may drop them when
+     * busy, and the subscriber is always completed, or given the error, when
+     * the analysis ends.
+     */
+    public AnalysisResult performFullAnalysis(DreamEntry dream, Flow.Subscriber<? super AnalysisUpdate> updates) {
+        StagePublisher publisher = updates == null ? null : new StagePublisher(updates);
+        try {
             // Perform NLP analysis using compatible methods
             Map<String, Double> emotions = nlpService.analyzeEmotion(dream.getDreamText());
+            publish(publisher, AnalysisUpdate.emotions(emotions));
             List<String> symbols = nlpService.extractSymbols(dream.getDreamText());
+            publish(publisher, AnalysisUpdate.symbols(symbols));
+            AppExecutors.checkCancelled();
 
             // Generate detailed interpretation using compatible method
             String interpretation = generateDetailedInterpretation(
                     dream.getDreamText(), emotions, symbols, dream.getLucidityLevel()
             );
+            publish(publisher, AnalysisUpdate.interpretation(interpretation));
+            // Last chance to stop: a stale analysis should not be stored
+            AppExecutors.checkCancelled();
 
             // Create analysis result
             AnalysisResult result = new AnalysisResult(emotions, symbols, interpretation);
-            result.setDreamId(dreamId);
 
-            // Save analysis to database
-            saveAnalysisResult(result);
+            if (dream.getId() > 0) {
+                result.setDreamId(dream.getId());
+                try {
+                    repository.saveAnalysis(result);
+                } catch (SQLException e) {
+                    if (!DreamRepository.DREAM_NOT_FOUND.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                    // The dream was deleted meanwhile; store it again along with the analysis
+                    repository.saveDreamWithAnalysis(dream, result);
+                }
+            } else {
+                repository.saveDreamWithAnalysis(dream, result);
+            }
+
+            SymbolCooccurrenceIndex.getInstance().recordDream(dream.getUserId(), dream.getId(), symbols);
+            TrendService.getInstance().recordAnalysis(java.time.LocalDate.now(), result.getDominantEmotion(), symbols);
 
+            publish(publisher, AnalysisUpdate.persisted(result));
+            if (publisher != null) {
+                publisher.complete();
+            }
             return result;
 
+        } catch (CancellationException e) {
+            if (publisher != null) {
+                publisher.fail(e);
+            }
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to perform dream analysis", e);
+            RuntimeException failure = new RuntimeException("Failed to perform dream analysis", e);
+            if (publisher != null) {
+                publisher.fail(failure);
+            }
+            throw failure;
         }
     }
 
-    // Alternative method that saves the dream first, then analyzes
-    public AnalysisResult performFullAnalysis(String dreamText, java.time.LocalDate dreamDate, int sleepQuality, int lucidityLevel) {
-        try {
-            // Create and save dream entry first
-            DreamEntry dream = new DreamEntry(1, dreamText, dreamDate, sleepQuality, lucidityLevel);
-            int dreamId = databaseService.saveDreamEntry(dream);
-            dream.setId(dreamId);
+    private static void publish(StagePublisher publisher, AnalysisUpdate update) {
+        if (publisher != null) {
+            publisher.publish(update);
+        }
+    }
 
-            // Now perform analysis
-            return performFullAnalysis(dream);
+    /**
+     * Delivers stages on the CPU pool. When the pool's queue is full the
+     * update is dropped rather than failing the analysis; the publisher then
+     * gives up on the subscriber, so the remaining updates are dropped too and
+     * the terminal signal is handed over directly, leaving the subscriber
+     * always completed or failed exactly once.
+     */
+    private static final class StagePublisher {
+        private final Flow.Subscriber<? super AnalysisUpdate> subscriber;
+        // Four stages, so the buffer never fills and submit never blocks
+        private final SubmissionPublisher<AnalysisUpdate> publisher =
+                new SubmissionPublisher<>(AppExecutors.cpu(), AnalysisUpdate.Stage.values().length);
+        private boolean detached;
+
+        StagePublisher(Flow.Subscriber<? super AnalysisUpdate> subscriber) {
+            this.subscriber = subscriber;
+            try {
+                publisher.subscribe(subscriber);
+            } catch (RejectedExecutionException e) {
+                detach(null, e);
+            }
+        }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to perform dream analysis", e);
+        void publish(AnalysisUpdate update) {
+            if (detached) {
+                return;
+            }
+            try {
+                publisher.submit(update);
+            } catch (RejectedExecutionException e) {
+                detach(update, e);
+            }
         }
+
+        void complete() {
+            if (!detached) {
+                try {
+                    publisher.close();
+                    return;
+                } catch (RejectedExecutionException e) {
+                    detach(null, e);
+                }
+            }
+            publisher.close();
+            subscriber.onComplete();
+        }
+
+        void fail(Throwable error) {
+            if (!detached) {
+                try {
+                    publisher.closeExceptionally(error);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    detach(null, e);
+                }
+            }
+            publisher.closeExceptionally(error);
+            subscriber.onError(error);
+        }
+
+        // A refused delivery closes the subscription, and nothing is delivering to it any more
+        private void detach(AnalysisUpdate dropped, RejectedExecutionException e) {
+            detached = true;
+            System.err.println("Analysis updates no longer delivered"
+                    + (dropped != null ? ", dropped " + dropped.getStage() : "") + ": " + e.getMessage());
+        }
+    }
+
+    // Alternative entry point for a dream that has not been saved yet
+    public AnalysisResult performFullAnalysis(String dreamText, java.time.LocalDate dreamDate, int sleepQuality, int lucidityLevel) {
+        return performFullAnalysis(new DreamEntry(1, dreamText, dreamDate, sleepQuality, lucidityLevel));
     }
 
     private String generateDetailedInterpretation(String dreamText, Map<String, Double> emotions,
@@ -225,78 +341,17 @@ public class DreamAnalysisService {
         return recommendations.toString();
     }
 
-    private void saveAnalysisResult(AnalysisResult result) throws SQLException {
-        // First verify the dream exists
-        if (!databaseService.dreamExists(result.getDreamId())) {
-            throw new SQLException("Cannot save analysis: Dream with ID " + result.getDreamId() + " does not exist");
-        }
-
-        String sql = "INSERT INTO dream_analysis (dream_id, emotion_score, dominant_emotion, symbols_detected, interpretation_text, confidence_score) VALUES (?, ?, ?, ?, ?, ?)";
-
-        Connection connection = databaseService.getConnection();
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, result.getDreamId());
-            stmt.setDouble(2, result.getEmotionScore());
-            stmt.setString(3, result.getDominantEmotion());
-
-            // Handle symbols list
-            String symbolsStr = "";
-            if (result.getSymbolsDetected() != null && !result.getSymbolsDetected().isEmpty()) {
-                symbolsStr = String.join(",", result.getSymbolsDetected());
-            }
-            stmt.setString(4, symbolsStr);
-
-            stmt.setString(5, result.getInterpretationText());
-            stmt.setDouble(6, result.getConfidenceScore());
-
-            int affectedRows = stmt.executeUpdate();
-
-            if (affectedRows == 0) {
-                throw new SQLException("Creating analysis failed, no rows affected.");
-            }
-
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    result.setId(generatedKeys.getInt(1));
-                }
-            }
-        }
-    }
-
     public List<AnalysisResult> getUserAnalysisHistory(int userId) throws SQLException {
-        List<AnalysisResult> results = new ArrayList<>();
-        String sql = """
-            SELECT da.*, de.user_id 
-            FROM dream_analysis da 
-            JOIN dream_entries de ON da.dream_id = de.id 
-            WHERE de.user_id = ? 
-            ORDER BY da.analysis_timestamp DESC
-            """;
-
-        Connection connection = databaseService.getConnection();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                AnalysisResult result = new AnalysisResult();
-                result.setId(rs.getInt("id"));
-                result.setDreamId(rs.getInt("dream_id"));
-                result.setEmotionScore(rs.getDouble("emotion_score"));
-                result.setDominantEmotion(rs.getString("dominant_emotion"));
-
-                String symbolsStr = rs.getString("symbols_detected");
-                if (symbolsStr != null && !symbolsStr.isEmpty()) {
-                    result.setSymbolsDetected(Arrays.asList(symbolsStr.split(",")));
-                }
+        return repository.getAnalysisHistory(userId);
+    }
 
-                result.setInterpretationText(rs.getString("interpretation_text"));
-                result.setConfidenceScore(rs.getDouble("confidence_score"));
-                results.add(result);
-            }
-        }
+    public AnalysisPage getUserAnalysisHistoryPage(int userId, AnalysisPage.Cursor after, int limit,
+                                                   boolean summaryOnly) throws SQLException {
+        return repository.getAnalysisHistoryPage(userId, after, limit, summaryOnly);
+    }
 
-        return results;
+    public void streamUserAnalysisHistory(int userId, boolean summaryOnly, AnalysisSink sink) throws SQLException, IOException {
+        repository.streamAnalysisHistory(userId, summaryOnly, sink);
     }
 
     private String capitalizeFirst(String str) {
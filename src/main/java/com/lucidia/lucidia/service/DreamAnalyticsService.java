@@ -1,67 +1,81 @@
 package com.lucidia.lucidia.service;
 
-import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.model.DailyDreamSummary;
 import com.lucidia.lucidia.model.DreamInsight;
 import com.lucidia.lucidia.model.DreamStatistics;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class DreamAnalyticsService {
-    private final DatabaseService databaseService;
+    private final DreamRepository repository;
     private final NLPService nlpService;
 
     public DreamAnalyticsService() {
-        this.databaseService = DatabaseService.getInstance();
+        this(DreamRepositories.getDefault());
+    }
+
+    public DreamAnalyticsService(DreamRepository repository) {
+        this.repository = repository;
         this.nlpService = new NLPService();
     }
 
+    /** The user's statistics, or empty ones when they cannot be loaded. */
     public DreamStatistics generateUserStatistics(int userId) {
         try {
-            List<DreamEntry> allDreams = databaseService.getAllDreams(userId);
-            DreamStatistics stats = new DreamStatistics();
-
-            if (allDreams.isEmpty()) {
-                return initializeEmptyStats();
-            }
-
-            // Basic counts
-            stats.setTotalDreams(allDreams.size());
-            stats.setDreamsThisMonth(countDreamsThisMonth(allDreams));
-            stats.setDreamsThisWeek(countDreamsThisWeek(allDreams));
+            return computeUserStatistics(userId);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return initializeEmptyStats();
+        }
+    }
 
-            // Averages
-            stats.setAverageSleepQuality(calculateAverageSleepQuality(allDreams));
-            stats.setAverageLucidity(calculateAverageLucidity(allDreams));
+    /** The user's statistics; unlike {@link #generateUserStatistics} a failed load is thrown, not hidden. */
+    public DreamStatistics computeUserStatistics(int userId) throws SQLException {
+        // Counts, averages, per-day counts and streaks are aggregated by the repository
+        DreamStatistics stats = repository.getDreamAggregates(userId, LocalDate.now());
 
-            // Frequency analysis
-            stats.setEmotionFrequency(analyzeEmotionFrequency(allDreams));
-            stats.setSymbolFrequency(analyzeSymbolFrequency(allDreams));
-            stats.setDreamsPerDay(analyzeDreamsPerDay(allDreams));
+        if (stats.getTotalDreams() == 0) {
+            return initializeEmptyStats();
+        }
 
-            // Top items
-            stats.setMostCommonEmotion(findMostCommonEmotion(stats.getEmotionFrequency()));
-            stats.setTopSymbols(findTopSymbols(stats.getSymbolFrequency(), 5));
+        // Frequency analysis: stored analyses, plus NLP only for dreams never analyzed
+        List<String> unanalyzedTexts = repository.getUnanalyzedDreamTexts(userId);
+        stats.setEmotionFrequency(analyzeEmotionFrequency(
+                repository.getAnalyzedEmotionFrequency(userId), unanalyzedTexts));
+        stats.setSymbolFrequency(analyzeSymbolFrequency(
+                repository.getAnalyzedSymbolFrequency(userId), unanalyzedTexts));
 
-            // Streaks
-            stats.setLongestDreamStreak(calculateLongestStreak(allDreams));
-            stats.setCurrentStreak(calculateCurrentStreak(allDreams));
+        // Top items
+        stats.setMostCommonEmotion(findMostCommonEmotion(stats.getEmotionFrequency()));
+        stats.setTopSymbols(findTopSymbols(stats.getSymbolFrequency(), 5));
 
-            return stats;
+        return stats;
+    }
 
+    /** Day-by-day history for the timeline chart, oldest first; empty when it cannot be loaded. */
+    public List<DailyDreamSummary> getDailyTimeline(int userId) {
+        try {
+            return repository.getDailyTimeline(userId);
         } catch (Exception e) {
             e.printStackTrace();
-            return initializeEmptyStats();
+            return new ArrayList<>();
         }
     }
 
     public List<DreamInsight> generatePersonalizedInsights(int userId) {
+        return generatePersonalizedInsights(userId, generateUserStatistics(userId));
+    }
+
+    /** Insights from statistics the caller already has, so they are not computed twice. */
+    public List<DreamInsight> generatePersonalizedInsights(int userId, DreamStatistics stats) {
         List<DreamInsight> insights = new ArrayList<>();
         try {
-            List<DreamEntry> dreams = databaseService.getAllDreams(userId);
-            if (dreams.isEmpty()) {
+            if (stats.getTotalDreams() == 0) {
                 insights.add(new DreamInsight(
                         "Welcome to Lucidia!",
                         "Start recording your dreams to unlock personalized insights and patterns.",
@@ -71,13 +85,12 @@ public class DreamAnalyticsService {
                 return insights;
             }
 
-            DreamStatistics stats = generateUserStatistics(userId);
-
             // Generate insights based on statistics
-            insights.addAll(generateConsistencyInsights(stats, dreams));
+            insights.addAll(generateConsistencyInsights(stats));
             insights.addAll(generateEmotionalInsights(stats));
             insights.addAll(generateSleepInsights(stats));
             insights.addAll(generateSymbolInsights(stats));
+            insights.addAll(generateSymbolAssociationInsights(userId));
             insights.addAll(generateAchievementInsights(stats));
 
             return insights;
@@ -107,39 +120,11 @@ public class DreamAnalyticsService {
         return stats;
     }
 
-    private int countDreamsThisMonth(List<DreamEntry> dreams) {
-        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
-        return (int) dreams.stream()
-                .filter(dream -> !dream.getDreamDate().isBefore(firstOfMonth))
-                .count();
-    }
-
-    private int countDreamsThisWeek(List<DreamEntry> dreams) {
-        LocalDate startOfWeek = LocalDate.now().minusDays(7);
-        return (int) dreams.stream()
-                .filter(dream -> !dream.getDreamDate().isBefore(startOfWeek))
-                .count();
-    }
+    private Map<String, Integer> analyzeEmotionFrequency(Map<String, Integer> analyzedCounts, List<String> unanalyzedTexts) {
+        Map<String, Integer> emotionCount = new HashMap<>(analyzedCounts);
 
-    private double calculateAverageSleepQuality(List<DreamEntry> dreams) {
-        return dreams.stream()
-                .mapToInt(DreamEntry::getSleepQuality)
-                .average()
-                .orElse(0.0);
-    }
-
-    private double calculateAverageLucidity(List<DreamEntry> dreams) {
-        return dreams.stream()
-                .mapToInt(DreamEntry::getLucidityLevel)
-                .average()
-                .orElse(0.0);
-    }
-
-    private Map<String, Integer> analyzeEmotionFrequency(List<DreamEntry> dreams) {
-        Map<String, Integer> emotionCount = new HashMap<>();
-
-        for (DreamEntry dream : dreams) {
-            Map<String, Double> emotions = nlpService.analyzeEmotion(dream.getDreamText());
+        for (String dreamText : unanalyzedTexts) {
+            Map<String, Double> emotions = nlpService.analyzeEmotion(dreamText);
             String dominantEmotion = emotions.entrySet().stream()
                     .max(Map.Entry.comparingByValue())
                     .map(Map.Entry::getKey)
@@ -151,11 +136,11 @@ public class DreamAnalyticsService {
         return emotionCount;
     }
 
-    private Map<String, Integer> analyzeSymbolFrequency(List<DreamEntry> dreams) {
-        Map<String, Integer> symbolCount = new HashMap<>();
+    private Map<String, Integer> analyzeSymbolFrequency(Map<String, Integer> analyzedCounts, List<String> unanalyzedTexts) {
+        Map<String, Integer> symbolCount = new HashMap<>(analyzedCounts);
 
-        for (DreamEntry dream : dreams) {
-            List<String> symbols = nlpService.extractSymbols(dream.getDreamText());
+        for (String dreamText : unanalyzedTexts) {
+            List<String> symbols = nlpService.extractSymbols(dreamText);
             for (String symbol : symbols) {
                 symbolCount.put(symbol, symbolCount.getOrDefault(symbol, 0) + 1);
             }
@@ -164,14 +149,6 @@ public class DreamAnalyticsService {
         return symbolCount;
     }
 
-    private Map<LocalDate, Integer> analyzeDreamsPerDay(List<DreamEntry> dreams) {
-        return dreams.stream()
-                .collect(Collectors.groupingBy(
-                        DreamEntry::getDreamDate,
-                        Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-                ));
-    }
-
     private String findMostCommonEmotion(Map<String, Integer> emotionFrequency) {
         return emotionFrequency.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
@@ -187,56 +164,9 @@ public class DreamAnalyticsService {
                 .collect(Collectors.toList());
     }
 
-    private int calculateLongestStreak(List<DreamEntry> dreams) {
-        List<LocalDate> dreamDates = dreams.stream()
-                .map(DreamEntry::getDreamDate)
-                .sorted()
-                .collect(Collectors.toList());
-
-        if (dreamDates.isEmpty()) return 0;
-
-        int longestStreak = 1;
-        int currentStreak = 1;
-
-        for (int i = 1; i < dreamDates.size(); i++) {
-            long daysBetween = ChronoUnit.DAYS.between(dreamDates.get(i - 1), dreamDates.get(i));
-            if (daysBetween == 1) {
-                currentStreak++;
-                longestStreak = Math.max(longestStreak, currentStreak);
-            } else {
-                currentStreak = 1;
-            }
-        }
-
-        return longestStreak;
-    }
-
-    private int calculateCurrentStreak(List<DreamEntry> dreams) {
-        List<LocalDate> dreamDates = dreams.stream()
-                .map(DreamEntry::getDreamDate)
-                .sorted(Comparator.reverseOrder())
-                .collect(Collectors.toList());
-
-        if (dreamDates.isEmpty()) return 0;
-
-        int currentStreak = 0;
-        LocalDate currentDate = LocalDate.now();
-
-        for (LocalDate dreamDate : dreamDates) {
-            long daysBetween = ChronoUnit.DAYS.between(dreamDate, currentDate);
-            if (daysBetween == currentStreak) {
-                currentStreak++;
-            } else {
-                break;
-            }
-        }
-
-        return currentStreak;
-    }
-
     // ========== INSIGHT GENERATION METHODS ==========
 
-    private List<DreamInsight> generateConsistencyInsights(DreamStatistics stats, List<DreamEntry> dreams) {
+    private List<DreamInsight> generateConsistencyInsights(DreamStatistics stats) {
         List<DreamInsight> insights = new ArrayList<>();
 
         if (stats.getCurrentStreak() >= 7) {
@@ -248,7 +178,7 @@ public class DreamAnalyticsService {
             ));
         }
 
-        if (stats.getDreamsThisWeek() < 3 && dreams.size() >= 5) {
+        if (stats.getDreamsThisWeek() < 3 && stats.getTotalDreams() >= 5) {
             insights.add(new DreamInsight(
                     "Improve Recall Frequency",
                     "You're remembering fewer dreams this week compared to your average.",
@@ -315,6 +245,36 @@ public class DreamAnalyticsService {
         return insights;
     }
 
+    private List<DreamInsight> generateSymbolAssociationInsights(int userId) {
+        List<DreamInsight> insights = new ArrayList<>();
+
+        try {
+            // Require a few shared dreams so one-off coincidences don't surface as patterns
+            List<SymbolCooccurrenceIndex.SymbolAssociation> associations =
+                    SymbolCooccurrenceIndex.getInstance().getTopAssociations(userId, 3, 1);
+            for (SymbolCooccurrenceIndex.SymbolAssociation association : associations) {
+                if (association.getLift() >= 1.5) {
+                    insights.add(new DreamInsight(
+                            "Linked Symbols",
+                            capitalize(association.getSymbol()) + " usually appears with " + association.getAssociatedSymbol()
+                                    + " (" + association.getCooccurrences() + " dreams together).",
+                            DreamInsight.InsightType.PATTERN,
+                            "Notice what connects these images - together they may point to a single underlying theme."
+                    ));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Symbol association insights unavailable: " + e.getMessage());
+        }
+
+        return insights;
+    }
+
+    private String capitalize(String str) {
+        if (str == null || str.isEmpty()) return str;
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
     private List<DreamInsight> generateAchievementInsights(DreamStatistics stats) {
         List<DreamInsight> insights = new ArrayList<>();
 
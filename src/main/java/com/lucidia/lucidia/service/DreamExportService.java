@@ -0,0 +1,227 @@
+package com.lucidia.lucidia.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a user's journal, joined with every stored analysis, to JSON Lines
+ * or CSV. Rows come from a server-side cursor with a fixed fetch size and are
+ * written as they arrive, so memory use stays at one fetch batch regardless of
+ * journal size.
+ */
+public class DreamExportService {
+
+    public enum Format { JSONL, CSV }
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Ordered by dream so each dream's analyses arrive consecutively
+    private static final String EXPORT_SQL = """
+            SELECT d.id, d.dream_date, d.sleep_quality, d.lucidity_level, d.dream_text,
+                   a.id AS analysis_id, a.analysis_timestamp, a.dominant_emotion, a.emotion_score,
+                   a.confidence_score, a.symbols_detected, a.interpretation_text
+            FROM dream_entries d
+            LEFT JOIN dream_analysis a ON a.dream_id = d.id
+            WHERE d.user_id = ?
+            ORDER BY d.id, a.analysis_timestamp, a.id
+            """;
+
+    private static final String[] CSV_HEADER = {
+            "dream_id", "dream_date", "sleep_quality", "lucidity_level", "dream_text",
+            "analysis_id", "analysis_timestamp", "dominant_emotion", "emotion_score",
+            "confidence_score", "symbols_detected", "interpretation_text"
+    };
+
+    private final DatabaseService databaseService;
+
+    public DreamExportService() {
+        this.databaseService = DatabaseService.getInstance();
+    }
+
+    /**
+     * Exports to {@code target}, choosing the format from its extension
+     * ({@code .csv} or JSON Lines otherwise) and gzipping when it ends in {@code .gz}.
+     *
+     * @return the number of dreams exported
+     */
+    public long exportToFile(int userId, Path target) throws SQLException, IOException {
+        String name = target.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        Format format = name.endsWith(".csv") ? Format.CSV : Format.JSONL;
+
+        try (OutputStream out = Files.newOutputStream(target)) {
+            return export(userId, format, gzip, out);
+        }
+    }
+
+    /**
+     * Writes the export to {@code out}. The stream is flushed but not closed.
+     *
+     * @return the number of dreams exported
+     */
+    public long export(int userId, Format format, boolean gzip, OutputStream out) throws SQLException, IOException {
+        long start = System.nanoTime();
+        long dreams;
+
+        // pgjdbc only honours the fetch size inside a transaction, so the cursor
+        // gets its own connection rather than toggling autocommit on the shared one
+        try (Connection connection = databaseService.openConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                stmt.setInt(1, userId);
+
+                OutputStream sink = gzip ? new GZIPOutputStream(nonClosing(out), BUFFER_SIZE) : nonClosing(out);
+                try (OutputStream target = new BufferedOutputStream(sink, BUFFER_SIZE);
+                     ResultSet rs = stmt.executeQuery()) {
+                    dreams = format == Format.CSV ? writeCsv(rs, target) : writeJsonLines(rs, target);
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            databaseService.recordFailure(EXPORT_SQL, e);
+            throw e;
+        }
+
+        databaseService.recordQuery(EXPORT_SQL, List.of(userId), (int) Math.min(dreams, Integer.MAX_VALUE), start);
+        return dreams;
+    }
+
+    // One object per dream with its analyses nested, emitted as soon as the next dream starts
+    private long writeJsonLines(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long dreams = 0;
+        int currentDreamId = -1;
+
+        JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(new SerializedString("\n"));
+        while (rs.next()) {
+            int dreamId = rs.getInt("id");
+            if (dreamId != currentDreamId) {
+                if (currentDreamId != -1) {
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                currentDreamId = dreamId;
+                dreams++;
+
+                json.writeStartObject();
+                json.writeNumberField("id", dreamId);
+                json.writeStringField("dreamDate", rs.getDate("dream_date").toLocalDate().toString());
+                json.writeNumberField("sleepQuality", rs.getInt("sleep_quality"));
+                json.writeNumberField("lucidityLevel", rs.getInt("lucidity_level"));
+                json.writeStringField("dreamText", rs.getString("dream_text"));
+                json.writeArrayFieldStart("analyses");
+            }
+
+            int analysisId = rs.getInt("analysis_id");
+            if (rs.wasNull()) {
+                continue;
+            }
+            Timestamp timestamp = rs.getTimestamp("analysis_timestamp");
+            json.writeStartObject();
+            json.writeNumberField("id", analysisId);
+            json.writeStringField("analysisTimestamp", timestamp != null ? timestamp.toLocalDateTime().toString() : null);
+            json.writeStringField("dominantEmotion", rs.getString("dominant_emotion"));
+            json.writeNumberField("emotionScore", rs.getDouble("emotion_score"));
+            json.writeNumberField("confidenceScore", rs.getDouble("confidence_score"));
+            json.writeArrayFieldStart("symbols");
+            for (String symbol : DatabaseService.readSymbols(rs)) {
+                json.writeString(symbol);
+            }
+            json.writeEndArray();
+            json.writeStringField("interpretationText", rs.getString("interpretation_text"));
+            json.writeEndObject();
+        }
+        if (currentDreamId != -1) {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+        json.flush();
+        return dreams;
+    }
+
+    // One row per dream/analysis pair; dreams without analyses get empty analysis columns
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long dreams = 0;
+        int currentDreamId = -1;
+
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeCsvRow(writer, CSV_HEADER);
+        String[] row = new String[CSV_HEADER.length];
+        while (rs.next()) {
+            int dreamId = rs.getInt("id");
+            if (dreamId != currentDreamId) {
+                currentDreamId = dreamId;
+                dreams++;
+            }
+
+            row[0] = String.valueOf(dreamId);
+            row[1] = rs.getDate("dream_date").toLocalDate().toString();
+            row[2] = String.valueOf(rs.getInt("sleep_quality"));
+            row[3] = String.valueOf(rs.getInt("lucidity_level"));
+            row[4] = rs.getString("dream_text");
+            row[5] = rs.getString("analysis_id");
+            Timestamp timestamp = rs.getTimestamp("analysis_timestamp");
+            row[6] = timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+            row[7] = rs.getString("dominant_emotion");
+            row[8] = rs.getString("emotion_score");
+            row[9] = rs.getString("confidence_score");
+            row[10] = String.join(";", DatabaseService.readSymbols(rs));
+            row[11] = rs.getString("interpretation_text");
+            writeCsvRow(writer, row);
+        }
+        writer.flush();
+        return dreams;
+    }
+
+    private static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            String value = fields[i];
+            if (value == null) continue;
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    // Closing the buffer and gzip wrappers finishes the stream but leaves the caller's open
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,409 @@
+package com.lucidia.lucidia.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucidia.lucidia.model.DreamEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming parser for journal files. Entries are produced one at a time so
+ * arbitrarily large journals never have to fit in memory.
+ *
+ * <ul>
+ *   <li>{@link Format#TEXT}: the {@code dreams.txt} style, an
+ *       {@code Example 1: Title (Lucidity: 4/5, Sleep Quality: 8/10)} header
+ *       followed by the quoted dream text</li>
+ *   <li>{@link Format#JSONL}: one object per line with {@code dreamText} and
+ *       optional {@code dreamDate}, {@code sleepQuality}, {@code lucidityLevel}</li>
+ *   <li>{@link Format#CSV}: a header row naming {@code dream_text} and optional
+ *       {@code dream_date}, {@code sleep_quality}, {@code lucidity_level} columns</li>
+ * </ul>
+ *
+ * <p>A malformed JSONL or CSV record is skipped and reported with its line
+ * number, so one bad line does not abort a large import. In strict mode the
+ * first one fails the parse instead.
+ */
+public abstract class DreamJournalParser implements Iterator<DreamEntry> {
+
+    public enum Format {
+        TEXT, JSONL, CSV;
+
+        public static Format fromFileName(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".gz")) {
+                lower = lower.substring(0, lower.length() - 3);
+            }
+            if (lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) return JSONL;
+            if (lower.endsWith(".csv")) return CSV;
+            return TEXT;
+        }
+    }
+
+    private static final int DEFAULT_SLEEP_QUALITY = 5;
+    private static final int DEFAULT_LUCIDITY = 0;
+    // Rejections kept for the report; later ones are only counted
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    protected final BufferedReader reader;
+    protected final int userId;
+    protected final LocalDate defaultDate;
+    private boolean strict;
+    private final List<Rejection> rejections = new ArrayList<>();
+    private long rejectedCount;
+    private DreamEntry next;
+
+    protected DreamJournalParser(BufferedReader reader, int userId, LocalDate defaultDate) {
+        this.reader = reader;
+        this.userId = userId;
+        this.defaultDate = defaultDate;
+    }
+
+    public static DreamJournalParser create(BufferedReader reader, Format format, int userId, LocalDate defaultDate) {
+        return create(reader, format, userId, defaultDate, false);
+    }
+
+    /** With {@code strict}, a malformed record fails the parse rather than being skipped. */
+    public static DreamJournalParser create(BufferedReader reader, Format format, int userId, LocalDate defaultDate,
+                                            boolean strict) {
+        DreamJournalParser parser;
+        switch (format) {
+            case JSONL:
+                parser = new JsonLinesParser(reader, userId, defaultDate);
+                break;
+            case CSV:
+                parser = new CsvParser(reader, userId, defaultDate);
+                break;
+            default:
+                parser = new TextParser(reader, userId, defaultDate);
+        }
+        parser.strict = strict;
+        return parser;
+    }
+
+    /** The first skipped records, in input order. */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /** How many records were skipped in total. */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public DreamEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DreamEntry entry = next;
+        next = null;
+        return entry;
+    }
+
+    /** Returns the next entry, or null at end of input. */
+    protected abstract DreamEntry readEntry() throws IOException;
+
+    // Skips the record starting at the given line, or fails the parse in strict mode
+    protected void reject(long lineNumber, String reason) throws IOException {
+        if (strict) {
+            throw new IOException("Line " + lineNumber + ": " + reason);
+        }
+        rejectedCount++;
+        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+            rejections.add(new Rejection(lineNumber, reason));
+        }
+    }
+
+    protected DreamEntry createEntry(String text, LocalDate date, Integer sleepQuality, Integer lucidity) {
+        int quality = sleepQuality != null ? Math.max(1, Math.min(10, sleepQuality)) : DEFAULT_SLEEP_QUALITY;
+        int lucidityLevel = lucidity != null ? Math.max(0, Math.min(5, lucidity)) : DEFAULT_LUCIDITY;
+        return new DreamEntry(userId, text.trim(), date != null ? date : defaultDate, quality, lucidityLevel);
+    }
+
+    private static Integer parseInteger(String value, String name) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(name + " is not a whole number: " + value.trim());
+        }
+    }
+
+    private static Integer parseNumber(JsonNode value, String name) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isNumber()) {
+            return value.asInt();
+        }
+        return parseInteger(value.asText(), name);
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value == null || value.isBlank() ? null : LocalDate.parse(value.trim());
+    }
+
+    private static final class TextParser extends DreamJournalParser {
+        private static final Pattern ENTRY_HEADER = Pattern.compile(
+                "^\\s*Example\\s+\\d+:.*\\(Lucidity:\\s*(\\d+)/5,\\s*Sleep Quality:\\s*(\\d+)/10\\)\\s*$",
+                Pattern.CASE_INSENSITIVE);
+
+        private String pendingLine;
+
+        TextParser(BufferedReader reader, int userId, LocalDate defaultDate) {
+            super(reader, userId, defaultDate);
+        }
+
+        @Override
+        protected DreamEntry readEntry() throws IOException {
+            String line;
+            while ((line = nextLine()) != null) {
+                Matcher header = ENTRY_HEADER.matcher(line);
+                if (!header.matches()) {
+                    continue;
+                }
+
+                String text = readBody();
+                if (!text.isEmpty()) {
+                    return createEntry(text, null,
+                            Integer.parseInt(header.group(2)), Integer.parseInt(header.group(1)));
+                }
+            }
+            return null;
+        }
+
+        // The body runs until a blank line or the next header, with surrounding quotes stripped
+        private String readBody() throws IOException {
+            StringBuilder body = new StringBuilder();
+            String line;
+            while ((line = nextLine()) != null) {
+                if (ENTRY_HEADER.matcher(line).matches()) {
+                    pendingLine = line;
+                    break;
+                }
+                if (line.isBlank()) {
+                    if (body.length() > 0) break;
+                    continue;
+                }
+                if (body.length() > 0) body.append(' ');
+                body.append(line.trim());
+            }
+
+            String text = body.toString().trim();
+            if (text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")) {
+                text = text.substring(1, text.length() - 1).trim();
+            }
+            return text;
+        }
+
+        private String nextLine() throws IOException {
+            if (pendingLine != null) {
+                String line = pendingLine;
+                pendingLine = null;
+                return line;
+            }
+            return reader.readLine();
+        }
+    }
+
+    private static final class JsonLinesParser extends DreamJournalParser {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+        private int lineNumber;
+
+        JsonLinesParser(BufferedReader reader, int userId, LocalDate defaultDate) {
+            super(reader, userId, defaultDate);
+        }
+
+        @Override
+        protected DreamEntry readEntry() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                JsonNode node;
+                try {
+                    node = MAPPER.readTree(line);
+                } catch (JsonProcessingException e) {
+                    reject(lineNumber, "invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (node == null || !node.isObject()) {
+                    reject(lineNumber, "not a JSON object");
+                    continue;
+                }
+                String text = node.path("dreamText").asText(null);
+                if (text == null || text.isBlank()) {
+                    reject(lineNumber, "no dreamText");
+                    continue;
+                }
+                try {
+                    return createEntry(text,
+                            parseDate(node.path("dreamDate").asText(null)),
+                            parseNumber(node.get("sleepQuality"), "sleepQuality"),
+                            parseNumber(node.get("lucidityLevel"), "lucidityLevel"));
+                } catch (DateTimeParseException e) {
+                    reject(lineNumber, "dreamDate is not an ISO date: " + e.getParsedString());
+                } catch (NumberFormatException e) {
+                    reject(lineNumber, e.getMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class CsvParser extends DreamJournalParser {
+        private Map<String, Integer> columns;
+        private long lineNumber;
+        // Line on which the record just read starts; quoted fields may span several
+        private long recordLine;
+
+        CsvParser(BufferedReader reader, int userId, LocalDate defaultDate) {
+            super(reader, userId, defaultDate);
+        }
+
+        @Override
+        protected DreamEntry readEntry() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                if (!columns.containsKey("dream_text")) {
+                    throw new IOException("CSV header must contain a dream_text column");
+                }
+            }
+
+            List<String> record;
+            while ((record = readRecord()) != null) {
+                String text = field(record, "dream_text");
+                if (text == null || text.isBlank()) {
+                    reject(recordLine, "no dream_text");
+                    continue;
+                }
+                try {
+                    return createEntry(text,
+                            parseDate(field(record, "dream_date")),
+                            parseInteger(field(record, "sleep_quality"), "sleep_quality"),
+                            parseInteger(field(record, "lucidity_level"), "lucidity_level"));
+                } catch (DateTimeParseException e) {
+                    reject(recordLine, "dream_date is not an ISO date: " + e.getParsedString());
+                } catch (NumberFormatException e) {
+                    reject(recordLine, e.getMessage());
+                }
+            }
+            return null;
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return index != null && index < record.size() ? record.get(index) : null;
+        }
+
+        // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+        private List<String> readRecord() throws IOException {
+            String line = nextLine();
+            while (line != null && line.isEmpty()) {
+                line = nextLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            recordLine = lineNumber;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else if (c != '\r') {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                line = nextLine();
+                if (line == null) {
+                    // Everything after the opening quote was swallowed, so there is nothing left to resume from
+                    reject(recordLine, "unterminated quoted field");
+                    return null;
+                }
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private String nextLine() throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+    }
+
+    /** A skipped record: the line it starts on and why it was skipped. */
+    public static final class Rejection {
+        private final long lineNumber;
+        private final String reason;
+
+        Rejection(long lineNumber, String reason) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() { return lineNumber; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + reason;
+        }
+    }
+}
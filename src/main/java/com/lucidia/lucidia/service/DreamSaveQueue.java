@@ -0,0 +1,377 @@
+package com.lucidia.lucidia.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind queue for dream saves. A save is appended to a local log and
+ * fsync'd before {@link #submit} returns, so it survives crashes and database
+ * outages. A background writer drains the queue to PostgreSQL in batches and
+ * retries with backoff while the database is unreachable. A save the database
+ * rejects outright, such as one breaking a CHECK constraint, is isolated from
+ * its batch, written to a dead-letter file and acknowledged, so it cannot
+ * block the saves behind it.
+ *
+ * <p>The log holds one JSON record per line: {@code save} records carry the
+ * dream and its client reference, {@code ack} records mark references that
+ * reached the database. Unacknowledged saves are replayed on startup; the
+ * client reference makes a replay of an already stored save a no-op.
+ */
+public class DreamSaveQueue {
+    private static DreamSaveQueue instance;
+
+    private static final String LOG_FILE_NAME = "pending-saves.log";
+    private static final String DEAD_LETTER_FILE_NAME = "rejected-saves.log";
+    private static final int MAX_BATCH_SIZE = 200;
+    private static final long BATCH_LINGER_MS = 50;
+    private static final long INITIAL_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DatabaseService databaseService = DatabaseService.getInstance();
+    private final Path logPath;
+    private final Path deadLetterPath;
+    private final FileChannel log;
+    private final BlockingQueue<PendingSave> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // Saves that are logged but not yet acknowledged, including the batch in flight
+    private int outstanding;
+    private volatile boolean running = true;
+    private Connection writerConnection;
+
+    private DreamSaveQueue(Path dataDir) throws IOException {
+        Files.createDirectories(dataDir);
+        this.logPath = dataDir.resolve(LOG_FILE_NAME);
+        this.deadLetterPath = dataDir.resolve(DEAD_LETTER_FILE_NAME);
+        List<PendingSave> recovered = readPendingSaves(logPath);
+
+        // Rewrite the log with only what is still pending so it does not grow across runs. The
+        // compacted copy replaces it in one atomic move, so a crash leaves either log intact
+        Path compacted = Files.createTempFile(dataDir, LOG_FILE_NAME, ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+                for (PendingSave save : recovered) {
+                    appendRecord(out, saveRecord(save));
+                }
+                out.force(false);
+            }
+            Files.move(compacted, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(compacted);
+        }
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        queue.addAll(recovered);
+        outstanding = recovered.size();
+        for (PendingSave save : recovered) {
+            LocalDreamStore.getInstance().onDreamQueued(save.ref, save.dream);
+        }
+        if (!recovered.isEmpty()) {
+            System.out.println("Replaying " + recovered.size() + " unsaved dreams from " + logPath);
+        }
+
+        this.writer = new Thread(this::drain, "lucidia-save-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized DreamSaveQueue getInstance() {
+        if (instance == null) {
+            try {
+                instance = new DreamSaveQueue(DatabaseConfig.LOCAL_DATA_DIR);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open save log in " + DatabaseConfig.LOCAL_DATA_DIR, e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Durably records a save and returns once it is on local disk. The future
+     * completes with the database id when the dream reaches PostgreSQL.
+     */
+    public CompletableFuture<Integer> submit(DreamEntry dream) throws IOException {
+        PendingSave save = new PendingSave(UUID.randomUUID(), dream);
+        synchronized (this) {
+            appendRecord(log, saveRecord(save));
+            log.force(false);
+            outstanding++;
+        }
+        // Listed in local history right away, under a temporary id until the writer stores it
+        LocalDreamStore.getInstance().onDreamQueued(save.ref, dream);
+        queue.add(save);
+        return save.result;
+    }
+
+    public synchronized int getPendingCount() {
+        return outstanding;
+    }
+
+    /**
+     * Stops the writer after giving it up to {@code timeoutMillis} to flush.
+     * Anything left stays in the log and is replayed on the next start.
+     */
+    public void shutdown(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+        writer.interrupt();
+    }
+
+    private void drain() {
+        List<PendingSave> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        long retryDelay = INITIAL_RETRY_DELAY_MS;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                    // Give concurrent saves a moment to join the batch
+                    Thread.sleep(BATCH_LINGER_MS);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                }
+
+                // Stored and rejected saves leave the batch; on a connection failure the rest is retried
+                writeIsolatingRejects(batch, new ArrayList<>(batch));
+                retryDelay = INITIAL_RETRY_DELAY_MS;
+            } catch (InterruptedException e) {
+                break;
+            } catch (SQLException | IOException e) {
+                System.err.println("Dream save batch failed (" + batch.size() + " pending), retrying in "
+                        + retryDelay + " ms: " + e.getMessage());
+                closeWriterConnection();
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+        closeWriterConnection();
+    }
+
+    /**
+     * Writes {@code part}, removing from {@code batch} whatever was stored or
+     * rejected. When the database rejects the part, it is halved until the
+     * offending saves are alone; those go to the dead-letter file. Only a
+     * connection failure, or failing to write the dead-letter file, is thrown,
+     * leaving the rest of the batch for a retry.
+     */
+    private void writeIsolatingRejects(List<PendingSave> batch, List<PendingSave> part) throws SQLException, IOException {
+        try {
+            List<Integer> ids = writeBatch(part);
+            acknowledge(part, ids);
+            batch.removeAll(part);
+        } catch (SQLException | RuntimeException e) {
+            if (isConnectionFailure(e)) {
+                throw e instanceof SQLException sql ? sql : new SQLException(e.getMessage(), "08000", e);
+            }
+            if (part.size() == 1) {
+                reject(part.get(0), e);
+                batch.removeAll(part);
+                return;
+            }
+            int middle = part.size() / 2;
+            writeIsolatingRejects(batch, new ArrayList<>(part.subList(0, middle)));
+            writeIsolatingRejects(batch, new ArrayList<>(part.subList(middle, part.size())));
+            return;
+        }
+        notifySaved(part);
+    }
+
+    // Worth retrying only if the database could not be reached; anything else fails again the same way
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException) {
+                return true;
+            }
+            // Class 08 is a connection exception; 57P0x is the server shutting down or restarting
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("57P0"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps the save in the dead-letter file, then settles it like a stored one so it is not replayed
+    private void reject(PendingSave save, Exception error) throws IOException {
+        String sqlState = error instanceof SQLException sql ? sql.getSQLState() : null;
+        synchronized (this) {
+            ObjectNode record = saveRecord(save);
+            record.put("error", String.valueOf(error.getMessage()));
+            if (sqlState != null) {
+                record.put("sqlState", sqlState);
+            }
+            // If this fails the save stays queued and is retried, rather than being lost
+            try (FileChannel deadLetters = FileChannel.open(deadLetterPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                deadLetters.write(ByteBuffer.wrap((objectMapper.writeValueAsString(record) + "\n")
+                        .getBytes(StandardCharsets.UTF_8)));
+                deadLetters.force(false);
+            }
+        }
+        System.err.println("Dream save rejected by the database" + (sqlState != null ? " (SQLSTATE " + sqlState + ")" : "")
+                + ", moved to " + deadLetterPath + ": " + error.getMessage());
+        acknowledge(List.of(save), null);
+        LocalDreamStore.getInstance().onDreamRejected(save.ref);
+        save.result.completeExceptionally(error);
+    }
+
+    private List<Integer> writeBatch(List<PendingSave> batch) throws SQLException {
+        if (writerConnection == null || writerConnection.isClosed()) {
+            writerConnection = databaseService.openConnection();
+        }
+        List<DreamEntry> dreams = new ArrayList<>(batch.size());
+        List<UUID> refs = new ArrayList<>(batch.size());
+        for (PendingSave save : batch) {
+            dreams.add(save.dream);
+            refs.add(save.ref);
+        }
+        return databaseService.saveDreamEntries(writerConnection, dreams, refs);
+    }
+
+    // Written around the repository, so its listeners are told here. The saves are already stored,
+    // so a listener failing must not send them down the rejection path
+    private void notifySaved(List<PendingSave> batch) {
+        for (PendingSave save : batch) {
+            try {
+                LocalDreamStore.getInstance().onDreamSaved(save.dream, save.ref);
+            } catch (RuntimeException e) {
+                System.err.println("Dream change listener LocalDreamStore failed: " + e.getMessage());
+            }
+            DreamRepositories.changes().onDreamSaved(save.dream);
+        }
+    }
+
+    private void acknowledge(List<PendingSave> batch, List<Integer> ids) {
+        synchronized (this) {
+            try {
+                for (PendingSave save : batch) {
+                    ObjectNode ack = objectMapper.createObjectNode();
+                    ack.put("op", "ack");
+                    ack.put("ref", save.ref.toString());
+                    appendRecord(log, ack);
+                }
+                outstanding -= batch.size();
+                // Nothing pending: start the log afresh. Acks need no fsync since
+                // replaying an already stored save is harmless
+                if (outstanding == 0) {
+                    log.truncate(0);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not update save log: " + e.getMessage());
+            }
+        }
+        if (ids != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(ids.get(i));
+            }
+        }
+    }
+
+    private void closeWriterConnection() {
+        if (writerConnection != null) {
+            try {
+                writerConnection.close();
+            } catch (SQLException e) {
+                // Already broken
+            }
+            writerConnection = null;
+        }
+    }
+
+    private ObjectNode saveRecord(PendingSave save) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", "save");
+        record.put("ref", save.ref.toString());
+        record.put("userId", save.dream.getUserId());
+        record.put("dreamText", save.dream.getDreamText());
+        record.put("dreamDate", save.dream.getDreamDate().toString());
+        record.put("sleepQuality", save.dream.getSleepQuality());
+        record.put("lucidityLevel", save.dream.getLucidityLevel());
+        return record;
+    }
+
+    private void appendRecord(FileChannel channel, JsonNode record) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private List<PendingSave> readPendingSaves(Path path) throws IOException {
+        Map<UUID, PendingSave> pending = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode record;
+                try {
+                    record = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    // A torn final line from a crash mid-append; its save was never acknowledged to the user
+                    continue;
+                }
+                if (record == null || !record.hasNonNull("ref")) {
+                    continue;
+                }
+                UUID ref = UUID.fromString(record.get("ref").asText());
+                if ("ack".equals(record.path("op").asText())) {
+                    pending.remove(ref);
+                } else {
+                    DreamEntry dream = new DreamEntry(
+                            record.path("userId").asInt(),
+                            record.path("dreamText").asText(),
+                            LocalDate.parse(record.path("dreamDate").asText()),
+                            record.path("sleepQuality").asInt(),
+                            record.path("lucidityLevel").asInt()
+                    );
+                    pending.put(ref, new PendingSave(ref, dream));
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static final class PendingSave {
+        private final UUID ref;
+        private final DreamEntry dream;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        PendingSave(UUID ref, DreamEntry dream) {
+            this.ref = ref;
+            this.dream = dream;
+        }
+    }
+}
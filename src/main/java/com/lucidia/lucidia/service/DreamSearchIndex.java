@@ -0,0 +1,353 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.repository.DreamChangeListener;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Per-user inverted index over normalized dream tokens, scored with BM25.
+ * Indexes are built lazily from the repository on first use and then kept
+ * current by its change notifications as dreams are saved and deleted.
+ */
+public class DreamSearchIndex implements DreamChangeListener {
+    private static DreamSearchIndex instance;
+
+    // BM25 tuning: term-frequency saturation and document-length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PREVIEW_LENGTH = 60;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "was", "were", "that", "this", "with", "from", "into", "onto", "then",
+            "there", "their", "they", "them", "have", "had", "has", "but", "not", "for", "are",
+            "you", "your", "she", "her", "him", "his", "its", "our", "out", "all", "some", "one",
+            "like", "just", "very", "could", "would", "felt", "feel", "when", "what", "where",
+            "which", "while", "about", "over", "under", "again", "also", "been", "being", "than",
+            "dream", "dreamt", "dreamed", "myself", "suddenly", "seemed", "something"
+    );
+
+    private final Map<Integer, UserIndex> userIndexes = new ConcurrentHashMap<>();
+    // Dream id -> owning user, so deletes by id can find the right index
+    private final Map<Integer, Integer> dreamOwners = new ConcurrentHashMap<>();
+
+    private final DreamRepository repository;
+
+    private DreamSearchIndex() {
+        this.repository = DreamRepositories.getDefault();
+        DreamRepositories.addListener(this);
+    }
+
+    public static synchronized DreamSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new DreamSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Top-k earlier dreams most similar to the given one, best match first.
+     * The dream itself is excluded when it already has an id.
+     */
+    public List<SimilarDream> findSimilarDreams(DreamEntry dream, int limit) throws SQLException {
+        return findSimilarDreams(dream.getUserId(), dream.getDreamText(), dream.getId(), limit);
+    }
+
+    public List<SimilarDream> findSimilarDreams(int userId, String text, int excludeDreamId, int limit) throws SQLException {
+        if (text == null || text.isBlank() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return getOrBuild(userId).search(termFrequencies(text), excludeDreamId, limit);
+    }
+
+    @Override
+    public void onDreamSaved(DreamEntry dream) {
+        UserIndex index = userIndexes.get(dream.getUserId());
+        // Unloaded users pick the dream up when their index is first built
+        if (index != null) {
+            dreamOwners.put(dream.getId(), dream.getUserId());
+            index.add(dream);
+        }
+    }
+
+    @Override
+    public void onDreamDeleted(int dreamId) {
+        Integer userId = dreamOwners.remove(dreamId);
+        if (userId != null) {
+            UserIndex index = userIndexes.get(userId);
+            if (index != null) {
+                index.remove(dreamId);
+            }
+            return;
+        }
+        // Possibly in a journal still being loaded, which must not bring it back
+        for (UserIndex index : userIndexes.values()) {
+            index.remove(dreamId);
+        }
+    }
+
+    @Override
+    public void onUserChanged(int userId) {
+        invalidate(userId);
+    }
+
+    /**
+     * Drops a user's index so the next query rebuilds it from the repository.
+     */
+    public void invalidate(int userId) {
+        UserIndex removed = userIndexes.remove(userId);
+        if (removed != null) {
+            dreamOwners.values().removeIf(owner -> owner == userId);
+        }
+    }
+
+    /**
+     * The user's index, loading the journal into it on first use. The index
+     * is registered before the load starts, so dreams saved or deleted while
+     * it runs are applied to it directly; only that user's callers wait.
+     */
+    private UserIndex getOrBuild(int userId) throws SQLException {
+        UserIndex index = userIndexes.computeIfAbsent(userId, id -> new UserIndex());
+        index.build(() -> repository.getDreams(userId, null, "All Dreams"),
+                dreamId -> dreamOwners.put(dreamId, userId));
+        return index;
+    }
+
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : text.toLowerCase().split("[^a-z0-9]+")) {
+            String term = normalizeToken(token);
+            if (term != null) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    private static String normalizeToken(String token) {
+        if (token.length() < 3 || STOP_WORDS.contains(token)) {
+            return null;
+        }
+        // Light plural folding so "waters"/"water" and "stairs"/"stair" share a posting list
+        if (token.length() > 4 && token.endsWith("s") && !token.endsWith("ss")) {
+            token = token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    @FunctionalInterface
+    private interface JournalLoader {
+        List<DreamEntry> load() throws SQLException;
+    }
+
+    private static final class UserIndex {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Integer, IndexedDream> documents = new HashMap<>();
+        private long totalLength;
+        // Held for the whole load, so concurrent first searches load the journal once
+        private final Object buildLock = new Object();
+        private volatile boolean built;
+        private boolean building;
+        // Deleted while the journal was loading; the loaded copy may still contain them
+        private final Set<Integer> deletedWhileBuilding = new HashSet<>();
+
+        void build(JournalLoader loader, IntConsumer onIndexed) throws SQLException {
+            if (built) {
+                return;
+            }
+            synchronized (buildLock) {
+                if (built) {
+                    return;
+                }
+                synchronized (this) {
+                    building = true;
+                }
+                List<DreamEntry> journal;
+                try {
+                    // Not under this index's lock, so saves and deletes keep being applied meanwhile
+                    journal = loader.load();
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (this) {
+                        building = false;
+                        deletedWhileBuilding.clear();
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    for (DreamEntry dream : journal) {
+                        // Dreams saved during the load are already in, and deleted ones stay out
+                        if (!documents.containsKey(dream.getId()) && !deletedWhileBuilding.contains(dream.getId())) {
+                            onIndexed.accept(dream.getId());
+                            addInternal(dream);
+                        }
+                    }
+                    building = false;
+                    deletedWhileBuilding.clear();
+                    built = true;
+                }
+            }
+        }
+
+        synchronized void add(DreamEntry dream) {
+            addInternal(dream);
+        }
+
+        private void addInternal(DreamEntry dream) {
+            if (dream.getId() <= 0 || dream.getDreamText() == null) {
+                return;
+            }
+            removeInternal(dream.getId());
+
+            Map<String, Integer> frequencies = termFrequencies(dream.getDreamText());
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+            String[] terms = frequencies.keySet().toArray(new String[0]);
+
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new Postings()).add(dream.getId(), frequencies.get(term));
+            }
+            documents.put(dream.getId(), new IndexedDream(dream, terms, length));
+            totalLength += length;
+        }
+
+        synchronized void remove(int dreamId) {
+            if (building) {
+                deletedWhileBuilding.add(dreamId);
+            }
+            removeInternal(dreamId);
+        }
+
+        private void removeInternal(int dreamId) {
+            IndexedDream existing = documents.remove(dreamId);
+            if (existing == null) {
+                return;
+            }
+            for (String term : existing.terms) {
+                Postings list = postings.get(term);
+                if (list != null && list.remove(dreamId) && list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+            totalLength -= existing.length;
+        }
+
+        synchronized List<SimilarDream> search(Map<String, Integer> queryTerms, int excludeDreamId, int limit) {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Integer> queryTerm : queryTerms.entrySet()) {
+                Postings list = postings.get(queryTerm.getKey());
+                if (list == null) {
+                    continue;
+                }
+
+                double idf = Math.log(1 + (documentCount - list.size + 0.5) / (list.size + 0.5));
+                double queryWeight = (queryTerm.getValue() * (K1 + 1)) / (queryTerm.getValue() + K1);
+
+                for (int i = 0; i < list.size; i++) {
+                    int dreamId = list.dreamIds[i];
+                    if (dreamId == excludeDreamId) {
+                        continue;
+                    }
+                    int tf = list.frequencies[i];
+                    double lengthNorm = 1 - B + B * documents.get(dreamId).length / averageLength;
+                    double termScore = idf * (tf * (K1 + 1)) / (tf + K1 * lengthNorm);
+                    scores.merge(dreamId, termScore * queryWeight, Double::sum);
+                }
+            }
+
+            // Bounded min-heap keeps only the current top-k candidates
+            PriorityQueue<Map.Entry<Integer, Double>> topK =
+                    new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+                if (topK.size() < limit) {
+                    topK.add(score);
+                } else if (score.getValue() > topK.peek().getValue()) {
+                    topK.poll();
+                    topK.add(score);
+                }
+            }
+
+            List<SimilarDream> results = new ArrayList<>(topK.size());
+            while (!topK.isEmpty()) {
+                Map.Entry<Integer, Double> match = topK.poll();
+                IndexedDream dream = documents.get(match.getKey());
+                results.add(new SimilarDream(match.getKey(), dream.dreamDate, dream.preview, match.getValue()));
+            }
+            Collections.reverse(results);
+            return results;
+        }
+    }
+
+    // Parallel primitive arrays keep posting lists compact for large journals
+    private static final class Postings {
+        private int[] dreamIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int dreamId, int frequency) {
+            if (size == dreamIds.length) {
+                dreamIds = Arrays.copyOf(dreamIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            dreamIds[size] = dreamId;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        boolean remove(int dreamId) {
+            for (int i = 0; i < size; i++) {
+                if (dreamIds[i] == dreamId) {
+                    size--;
+                    dreamIds[i] = dreamIds[size];
+                    frequencies[i] = frequencies[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class IndexedDream {
+        private final LocalDate dreamDate;
+        private final String preview;
+        private final String[] terms;
+        private final int length;
+
+        IndexedDream(DreamEntry dream, String[] terms, int length) {
+            String text = dream.getDreamText();
+            this.dreamDate = dream.getDreamDate();
+            this.preview = text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH) + "..." : text;
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    public static class SimilarDream {
+        private final int dreamId;
+        private final LocalDate dreamDate;
+        private final String preview;
+        private final double score;
+
+        public SimilarDream(int dreamId, LocalDate dreamDate, String preview, double score) {
+            this.dreamId = dreamId;
+            this.dreamDate = dreamDate;
+            this.preview = preview;
+            this.score = score;
+        }
+
+        public int getDreamId() { return dreamId; }
+        public LocalDate getDreamDate() { return dreamDate; }
+        public String getPreview() { return preview; }
+        public double getScore() { return score; }
+    }
+}
@@ -1,6 +1,7 @@
 package com.lucidia.lucidia.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucidia.lucidia.util.AppExecutors;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import javafx.scene.image.Image;
@@ -14,7 +15,9 @@ import java.util.concurrent.TimeUnit;
 public class DreamVisualizationService extends Service<Image> {
 
     private static final String PYTHON_SCRIPT_PATH = "dream_visualizer.py";
-    private static final String OUTPUT_DIR = "generated_images";
+    static final String OUTPUT_DIR = "generated_images";
+    // Larger than any view shows it, with headroom for HiDPI screens
+    private static final int MAX_DISPLAY_SIZE = 1024;
     private static final int TIMEOUT_MINUTES = 10;
 
     private final ObjectMapper objectMapper;
@@ -26,6 +29,8 @@ public class DreamVisualizationService extends Service<Image> {
 
     public DreamVisualizationService() {
         this.objectMapper = new ObjectMapper();
+        // Generation is mostly waiting on the image API; without this every Service starts its own thread
+        setExecutor(AppExecutors.io());
         ensureOutputDirectory();
     }
 
@@ -179,8 +184,16 @@ public class DreamVisualizationService extends Service<Image> {
             throw new FileNotFoundException("Generated image not found: " + imagePath);
         }
 
+        // The gallery will want a thumbnail; make it while the full image is still in the page cache
+        ThumbnailService.getInstance().thumbnail(imageFile.toPath());
+
         try {
-            return new Image(imageFile.toURI().toString());
+            // Decode at display size rather than the generator's full resolution
+            Image image = new Image(imageFile.toURI().toString(), MAX_DISPLAY_SIZE, MAX_DISPLAY_SIZE, true, true);
+            if (image.isError()) {
+                throw image.getException();
+            }
+            return image;
         } catch (Exception e) {
             throw new RuntimeException("Failed to load generated image: " + e.getMessage(), e);
         }
@@ -0,0 +1,418 @@
+package com.lucidia.lucidia.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.repository.DreamChangeListener;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.InMemoryDreamRepository;
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk replica of the journal that serves history reads without a database
+ * round trip. It holds each synced user's dreams and the latest analysis of
+ * each dream, plus saves still waiting in {@link DreamSaveQueue}, which are
+ * listed under temporary negative ids until PostgreSQL assigns real ones.
+ *
+ * <p>{@link SyncService} reconciles the replica with PostgreSQL; repository
+ * change notifications and the save queue keep it current in between. Changes are written back to a JSON
+ * snapshot shortly after they happen, replacing the file atomically.
+ */
+public class LocalDreamStore implements DreamChangeListener {
+    private static LocalDreamStore instance;
+
+    private static final String STORE_FILE_NAME = "local-store.json";
+    private static final long FLUSH_DELAY_MS = 1_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path storePath;
+    private final Map<Integer, UserData> users = new HashMap<>();
+    // Dream id -> owning user, so updates by dream id find the right replica
+    private final Map<Integer, Integer> dreamOwners = new HashMap<>();
+    private final Map<UUID, DreamEntry> pending = new LinkedHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private int nextPendingId = -1;
+    private boolean flushScheduled;
+
+    private LocalDreamStore(Path dataDir) {
+        this.storePath = dataDir.resolve(STORE_FILE_NAME);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lucidia-local-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            // The replica is only a cache of the database; start empty and resync
+            System.err.println("Ignoring unreadable local store " + storePath + ": " + e.getMessage());
+            users.clear();
+            dreamOwners.clear();
+        }
+        DreamRepositories.addListener(this);
+    }
+
+    public static synchronized LocalDreamStore getInstance() {
+        if (instance == null) {
+            instance = new LocalDreamStore(DatabaseConfig.LOCAL_DATA_DIR);
+        }
+        return instance;
+    }
+
+    /**
+     * Lists a user's dreams with the same search and filter semantics as
+     * {@link DatabaseService#getDreamEntries}, newest first. Unsynced saves are
+     * included.
+     */
+    public synchronized List<DreamEntry> getDreamEntries(String searchText, String filter, int userId) {
+        LocalDate today = LocalDate.now();
+
+        List<DreamEntry> dreams = new ArrayList<>();
+        UserData data = users.get(userId);
+        if (data != null) {
+            for (DreamEntry dream : data.dreams.values()) {
+                if (InMemoryDreamRepository.matchesFilter(dream, searchText, filter, today)) {
+                    dreams.add(InMemoryDreamRepository.copyOf(dream));
+                }
+            }
+        }
+        for (DreamEntry dream : pending.values()) {
+            if (dream.getUserId() == userId && InMemoryDreamRepository.matchesFilter(dream, searchText, filter, today)) {
+                dreams.add(InMemoryDreamRepository.copyOf(dream));
+            }
+        }
+        dreams.sort(Comparator.comparing(DreamEntry::getDreamDate).reversed()
+                .thenComparing(Comparator.comparingInt(DreamEntry::getId).reversed()));
+        return dreams;
+    }
+
+    public List<DreamEntry> getAllDreams(int userId) {
+        return getDreamEntries(null, "All Dreams", userId);
+    }
+
+    /** A stored or pending dream by id, or null when the replica does not hold it. */
+    public synchronized DreamEntry getDreamEntry(int dreamId) {
+        if (dreamId < 0) {
+            for (DreamEntry dream : pending.values()) {
+                if (dream.getId() == dreamId) {
+                    return InMemoryDreamRepository.copyOf(dream);
+                }
+            }
+            return null;
+        }
+        Integer userId = dreamOwners.get(dreamId);
+        DreamEntry dream = userId != null ? users.get(userId).dreams.get(dreamId) : null;
+        return dream != null ? InMemoryDreamRepository.copyOf(dream) : null;
+    }
+
+    public synchronized AnalysisResult getLatestAnalysis(int dreamId) {
+        Integer userId = dreamOwners.get(dreamId);
+        AnalysisResult analysis = userId != null ? users.get(userId).latestAnalyses.get(dreamId) : null;
+        return analysis != null ? InMemoryDreamRepository.copyOf(analysis) : null;
+    }
+
+    public synchronized boolean hasUser(int userId) {
+        return users.containsKey(userId);
+    }
+
+    // Highest dream and analysis ids held for a user; the sync pulls anything newer
+    synchronized int getMaxDreamId(int userId) {
+        UserData data = users.get(userId);
+        return data != null && !data.dreams.isEmpty() ? data.dreams.lastKey() : 0;
+    }
+
+    synchronized int getMaxAnalysisId(int userId) {
+        UserData data = users.get(userId);
+        return data != null ? data.maxAnalysisId : 0;
+    }
+
+    // ===== Sync =====
+
+    /**
+     * Replaces a user's replica with a full copy from the database.
+     *
+     * @return whether anything the user can see changed
+     */
+    synchronized boolean replaceUser(int userId, List<DreamEntry> dreams, List<AnalysisResult> latestAnalyses) {
+        UserData data = new UserData();
+        mergeInto(data, dreams, latestAnalyses);
+        UserData previous = users.put(userId, data);
+        if (previous == null) {
+            scheduleFlush();
+            return true;
+        }
+        // Dreams deleted in the database since the last sync
+        for (Integer dreamId : previous.dreams.keySet()) {
+            if (!data.dreams.containsKey(dreamId)) {
+                dreamOwners.remove(dreamId);
+            }
+        }
+        boolean changed = !sameContents(previous, data);
+        if (changed) {
+            scheduleFlush();
+        }
+        return changed;
+    }
+
+    /**
+     * Adds dreams and analyses created in the database since the last sync.
+     *
+     * @return whether anything was added
+     */
+    synchronized boolean mergeUser(int userId, List<DreamEntry> dreams, List<AnalysisResult> analyses) {
+        boolean changed = mergeInto(users.computeIfAbsent(userId, id -> new UserData()), dreams, analyses);
+        if (changed) {
+            scheduleFlush();
+        }
+        return changed;
+    }
+
+    private boolean mergeInto(UserData data, List<DreamEntry> dreams, List<AnalysisResult> analyses) {
+        boolean changed = false;
+        for (DreamEntry dream : dreams) {
+            changed |= putDream(data, dream);
+        }
+        for (AnalysisResult analysis : analyses) {
+            changed |= putAnalysis(data, analysis);
+        }
+        return changed;
+    }
+
+    // ===== Write-path hooks =====
+
+    // A save accepted by the write-behind queue but not yet in the database
+    synchronized void onDreamQueued(UUID clientRef, DreamEntry dream) {
+        DreamEntry copy = InMemoryDreamRepository.copyOf(dream);
+        copy.setId(nextPendingId--);
+        pending.put(clientRef, copy);
+    }
+
+    // A queued save the database refused; it is kept in the dead-letter file instead
+    synchronized void onDreamRejected(UUID clientRef) {
+        pending.remove(clientRef);
+    }
+
+    synchronized void onDreamSaved(DreamEntry dream, UUID clientRef) {
+        if (clientRef != null) {
+            pending.remove(clientRef);
+        }
+        onDreamSaved(dream);
+    }
+
+    @Override
+    public synchronized void onDreamSaved(DreamEntry dream) {
+        UserData data = users.get(dream.getUserId());
+        // Users that were never synced pick the dream up on their first full sync
+        if (data != null && putDream(data, InMemoryDreamRepository.copyOf(dream))) {
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public synchronized void onDreamDeleted(int dreamId) {
+        Integer userId = dreamOwners.remove(dreamId);
+        if (userId != null) {
+            UserData data = users.get(userId);
+            data.dreams.remove(dreamId);
+            data.latestAnalyses.remove(dreamId);
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public synchronized void onAnalysisSaved(AnalysisResult result) {
+        Integer userId = dreamOwners.get(result.getDreamId());
+        // The caller keeps using its result, so the replica holds its own copy
+        if (userId != null && putAnalysis(users.get(userId), InMemoryDreamRepository.copyOf(result))) {
+            scheduleFlush();
+        }
+    }
+
+    private boolean putDream(UserData data, DreamEntry dream) {
+        DreamEntry previous = data.dreams.put(dream.getId(), dream);
+        dreamOwners.put(dream.getId(), dream.getUserId());
+        return previous == null || !sameDream(previous, dream);
+    }
+
+    // Keeps only the newest analysis per dream
+    private boolean putAnalysis(UserData data, AnalysisResult analysis) {
+        data.maxAnalysisId = Math.max(data.maxAnalysisId, analysis.getId());
+        if (!data.dreams.containsKey(analysis.getDreamId())) {
+            return false;
+        }
+        AnalysisResult current = data.latestAnalyses.get(analysis.getDreamId());
+        if (current != null && isNewer(current, analysis)) {
+            return false;
+        }
+        data.latestAnalyses.put(analysis.getDreamId(), analysis);
+        return current == null || current.getId() != analysis.getId();
+    }
+
+    private static boolean isNewer(AnalysisResult a, AnalysisResult b) {
+        int byTime = Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())
+                .compare(a.getAnalysisTimestamp(), b.getAnalysisTimestamp());
+        return byTime != 0 ? byTime > 0 : a.getId() > b.getId();
+    }
+
+    // ===== Persistence =====
+
+    /** Writes pending changes now; used on shutdown. */
+    public void flush() {
+        try {
+            flusher.submit(this::writeSnapshot).get();
+        } catch (Exception e) {
+            System.err.println("Could not flush local store: " + e.getMessage());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::writeSnapshot, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeSnapshot() {
+        ObjectNode root;
+        synchronized (this) {
+            flushScheduled = false;
+            root = toJson();
+        }
+        try {
+            Files.createDirectories(storePath.getParent());
+            Path temp = storePath.resolveSibling(STORE_FILE_NAME + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                objectMapper.writeValue(out, root);
+            }
+            Files.move(temp, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write local store " + storePath + ": " + e.getMessage());
+        }
+    }
+
+    // Pending saves are not written here; DreamSaveQueue's log already holds them durably
+    private ObjectNode toJson() {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode userArray = root.putArray("users");
+        for (Map.Entry<Integer, UserData> entry : users.entrySet()) {
+            UserData data = entry.getValue();
+            ObjectNode user = userArray.addObject();
+            user.put("userId", entry.getKey());
+            user.put("maxAnalysisId", data.maxAnalysisId);
+            ArrayNode dreamArray = user.putArray("dreams");
+            for (DreamEntry dream : data.dreams.values()) {
+                ObjectNode node = dreamArray.addObject();
+                node.put("id", dream.getId());
+                node.put("dreamText", dream.getDreamText());
+                node.put("dreamDate", dream.getDreamDate().toString());
+                node.put("sleepQuality", dream.getSleepQuality());
+                node.put("lucidityLevel", dream.getLucidityLevel());
+                AnalysisResult analysis = data.latestAnalyses.get(dream.getId());
+                if (analysis != null) {
+                    ObjectNode analysisNode = node.putObject("latestAnalysis");
+                    analysisNode.put("id", analysis.getId());
+                    analysisNode.put("analysisTimestamp", analysis.getAnalysisTimestamp() != null
+                            ? analysis.getAnalysisTimestamp().toString() : null);
+                    analysisNode.put("dominantEmotion", analysis.getDominantEmotion());
+                    analysisNode.put("emotionScore", analysis.getEmotionScore());
+                    analysisNode.put("confidenceScore", analysis.getConfidenceScore());
+                    ArrayNode symbols = analysisNode.putArray("symbols");
+                    if (analysis.getSymbolsDetected() != null) {
+                        analysis.getSymbolsDetected().forEach(symbols::add);
+                    }
+                    analysisNode.put("interpretationText", analysis.getInterpretationText());
+                }
+            }
+        }
+        return root;
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(storePath)) {
+            return;
+        }
+        JsonNode root = objectMapper.readTree(storePath.toFile());
+        for (JsonNode user : root.path("users")) {
+            int userId = user.path("userId").asInt();
+            UserData data = new UserData();
+            data.maxAnalysisId = user.path("maxAnalysisId").asInt();
+            users.put(userId, data);
+            for (JsonNode node : user.path("dreams")) {
+                DreamEntry dream = new DreamEntry(
+                        userId,
+                        node.path("dreamText").asText(),
+                        LocalDate.parse(node.path("dreamDate").asText()),
+                        node.path("sleepQuality").asInt(),
+                        node.path("lucidityLevel").asInt()
+                );
+                dream.setId(node.path("id").asInt());
+                putDream(data, dream);
+
+                JsonNode analysisNode = node.get("latestAnalysis");
+                if (analysisNode != null) {
+                    AnalysisResult analysis = new AnalysisResult();
+                    analysis.setId(analysisNode.path("id").asInt());
+                    analysis.setDreamId(dream.getId());
+                    analysis.setAnalysisTimestamp(analysisNode.hasNonNull("analysisTimestamp")
+                            ? LocalDateTime.parse(analysisNode.get("analysisTimestamp").asText()) : null);
+                    analysis.setDominantEmotion(analysisNode.path("dominantEmotion").asText(null));
+                    analysis.setEmotionScore(analysisNode.path("emotionScore").asDouble());
+                    analysis.setConfidenceScore(analysisNode.path("confidenceScore").asDouble());
+                    List<String> symbols = new ArrayList<>();
+                    analysisNode.path("symbols").forEach(symbol -> symbols.add(symbol.asText()));
+                    analysis.setSymbolsDetected(symbols);
+                    analysis.setInterpretationText(analysisNode.path("interpretationText").asText(null));
+                    data.latestAnalyses.put(dream.getId(), analysis);
+                }
+            }
+        }
+    }
+
+    // ===== Helpers =====
+
+    private static boolean sameContents(UserData a, UserData b) {
+        if (!a.dreams.keySet().equals(b.dreams.keySet()) || !a.latestAnalyses.keySet().equals(b.latestAnalyses.keySet())) {
+            return false;
+        }
+        for (Map.Entry<Integer, DreamEntry> entry : a.dreams.entrySet()) {
+            if (!sameDream(entry.getValue(), b.dreams.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        for (Map.Entry<Integer, AnalysisResult> entry : a.latestAnalyses.entrySet()) {
+            if (entry.getValue().getId() != b.latestAnalyses.get(entry.getKey()).getId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameDream(DreamEntry a, DreamEntry b) {
+        return a.getUserId() == b.getUserId()
+                && a.getSleepQuality() == b.getSleepQuality()
+                && a.getLucidityLevel() == b.getLucidityLevel()
+                && Objects.equals(a.getDreamDate(), b.getDreamDate())
+                && Objects.equals(a.getDreamText(), b.getDreamText());
+    }
+
+    private static final class UserData {
+        private final NavigableMap<Integer, DreamEntry> dreams = new TreeMap<>();
+        private final Map<Integer, AnalysisResult> latestAnalyses = new HashMap<>();
+        private int maxAnalysisId;
+    }
+}
@@ -19,6 +19,28 @@ public class NLPService {
         // Initialize any required NLP components
     }
 
+    /**
+     * Runs the analysis path over sample dreams until the JIT has compiled its
+     * hot loops, so the user's first real analysis does not run interpreted.
+     * Loading this class also builds the lexicons, so calling this early takes
+     * that cost off the first analysis as well.
+     */
+    public static void warmUp(int iterations) {
+        String[] samples = {
+                "I was flying over a dark ocean at night, afraid of falling into the water below.",
+                "My old house had a door I had never seen; behind it my family was laughing and I felt happy.",
+                "Someone was chasing me through a maze of endless stairs and I could not find the exit.",
+                "I realized I was dreaming and calmly walked through a peaceful forest full of light."
+        };
+        NLPService service = new NLPService();
+        for (int i = 0; i < iterations; i++) {
+            String text = samples[i % samples.length];
+            Map<String, Double> emotions = service.analyzeEmotion(text);
+            List<String> symbols = service.extractSymbols(text);
+            service.generateInterpretation(emotions, symbols);
+        }
+    }
+
     // COMPATIBLE METHOD: Returns List<String> for backward compatibility
     public List<String> extractSymbols(String dreamText) {
         List<DreamSymbol> dreamSymbols = extractSymbolsEnhanced(dreamText);
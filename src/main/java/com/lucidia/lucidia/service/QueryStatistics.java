@@ -0,0 +1,298 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.util.AppExecutors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Collects per-statement latency aggregates, error counts and a bounded
+ * slow-query log for every statement executed through {@link DatabaseService}.
+ * Plans for slow queries are captured in the background on a connection of
+ * their own, one at a time, so explaining never delays the caller.
+ */
+public class QueryStatistics {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int SLOW_LOG_CAPACITY = 100;
+    // A WITH query may wrap a data-modifying statement, which EXPLAIN ANALYZE would execute
+    private static final Pattern DATA_MODIFYING = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE)\\b");
+
+    // Raw SQL text -> normalized form, so the regexes only run once per distinct statement
+    private final Map<String, String> normalizedSql = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> statementStats = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowLog = new ArrayDeque<>();
+    private final ConnectionSource connectionSource;
+    // Set while a plan is being captured; slow queries arriving meanwhile are logged without one
+    private final AtomicBoolean explaining = new AtomicBoolean();
+
+    private volatile long slowThresholdMillis;
+    private volatile boolean explainSlowQueries;
+
+    public QueryStatistics(long slowThresholdMillis, boolean explainSlowQueries, ConnectionSource connectionSource) {
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.explainSlowQueries = explainSlowQueries;
+        this.connectionSource = connectionSource;
+    }
+
+    public void record(String sql, List<?> parameters, int rowCount, long elapsedNanos) {
+        String normalized = normalizedSql.computeIfAbsent(sql, QueryStatistics::normalize);
+        String shape = parameterShape(parameters);
+
+        statementStats.computeIfAbsent(normalized, StatementStats::new)
+                .add(shape, rowCount, elapsedNanos);
+
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        if (elapsedMillis >= slowThresholdMillis) {
+            SlowQuery slowQuery = new SlowQuery(normalized, shape, rowCount, elapsedMillis, null);
+            logSlowQuery(slowQuery);
+            if (explainSlowQueries && isReadOnly(sql)) {
+                explainInBackground(slowQuery, sql, parameters);
+            }
+        }
+    }
+
+    /**
+     * Counts a statement that threw. Failures are kept out of the latency
+     * aggregates, which describe only completed calls.
+     */
+    public void recordFailure(String sql, SQLException error) {
+        String normalized = normalizedSql.computeIfAbsent(sql, QueryStatistics::normalize);
+        statementStats.computeIfAbsent(normalized, StatementStats::new).addError(error);
+    }
+
+    /**
+     * Replaces literals with placeholders and collapses whitespace so that
+     * statements differing only in constants aggregate together.
+     */
+    public static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    public static String parameterShape(List<?> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return "()";
+        }
+        return parameters.stream()
+                .map(QueryStatistics::typeName)
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String typeName(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Integer || value instanceof Long) return "int";
+        if (value instanceof Double || value instanceof Float) return "float";
+        if (value instanceof String) return "text";
+        if (value instanceof Boolean) return "bool";
+        if (value instanceof java.sql.Date || value instanceof java.time.LocalDate) return "date";
+        if (value instanceof java.sql.Timestamp || value instanceof LocalDateTime) return "timestamp";
+        if (value instanceof java.sql.Array || value instanceof Object[]) return "array";
+        return value.getClass().getSimpleName().toLowerCase();
+    }
+
+    // EXPLAIN ANALYZE executes the statement, so only read-only queries are re-run
+    static boolean isReadOnly(String sql) {
+        String trimmed = sql.stripLeading().toUpperCase();
+        return trimmed.startsWith("SELECT")
+                || (trimmed.startsWith("WITH") && !DATA_MODIFYING.matcher(trimmed).find());
+    }
+
+    private void explainInBackground(SlowQuery slowQuery, String sql, List<?> parameters) {
+        if (connectionSource == null || !explaining.compareAndSet(false, true)) {
+            return;
+        }
+        // Copied because callers may reuse their parameter lists once record returns
+        List<?> bound = parameters != null ? new ArrayList<>(parameters) : List.of();
+        try {
+            AppExecutors.io().execute(() -> {
+                try {
+                    slowQuery.setPlan(explainAnalyze(sql, bound));
+                    System.err.println("Plan for slow query: " + slowQuery.getSql() + "\n" + slowQuery.getPlan());
+                } finally {
+                    explaining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            explaining.set(false);
+        }
+    }
+
+    private String explainAnalyze(String sql, List<?> parameters) {
+        try (Connection connection = connectionSource.open();
+             PreparedStatement stmt = connection.prepareStatement("EXPLAIN ANALYZE " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                bindParameter(connection, stmt, i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append("\n");
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "EXPLAIN ANALYZE failed: " + e.getMessage();
+        }
+    }
+
+    // Statements bind collections with createArrayOf, which setObject cannot infer, so they are rebuilt here
+    private static void bindParameter(Connection connection, PreparedStatement stmt, int index, Object value) throws SQLException {
+        Object[] elements = value instanceof Collection<?> collection ? collection.toArray()
+                : value instanceof Object[] array ? array : null;
+        if (elements == null) {
+            stmt.setObject(index, value);
+            return;
+        }
+        boolean integers = elements.length > 0 && Arrays.stream(elements).allMatch(Integer.class::isInstance);
+        stmt.setArray(index, connection.createArrayOf(integers ? "int4" : "text",
+                integers ? elements : Arrays.stream(elements).map(String::valueOf).toArray(String[]::new)));
+    }
+
+    private void logSlowQuery(SlowQuery slowQuery) {
+        synchronized (slowLog) {
+            if (slowLog.size() == SLOW_LOG_CAPACITY) {
+                slowLog.removeFirst();
+            }
+            slowLog.addLast(slowQuery);
+        }
+
+        System.err.println("Slow query (" + slowQuery.getElapsedMillis() + " ms, "
+                + slowQuery.getRowCount() + " rows): " + slowQuery.getSql() + " " + slowQuery.getParameterShape());
+    }
+
+    /**
+     * Aggregates ordered by total time spent, most expensive first.
+     */
+    public List<StatementStats> getStatementStats() {
+        return statementStats.values().stream()
+                .sorted(Comparator.comparingLong(StatementStats::getTotalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    public void reset() {
+        statementStats.clear();
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+    }
+
+    public String formatSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%8s %8s %10s %10s %10s %10s  %s%n", "calls", "errors", "total ms", "mean ms", "max ms", "rows", "statement"));
+        for (StatementStats stats : getStatementStats()) {
+            summary.append(String.format("%8d %8d %10.1f %10.2f %10.1f %10d  %s%n",
+                    stats.getCalls(),
+                    stats.getErrors(),
+                    stats.getTotalNanos() / 1_000_000.0,
+                    stats.getMeanMillis(),
+                    stats.getMaxNanos() / 1_000_000.0,
+                    stats.getTotalRows(),
+                    stats.getSql()));
+        }
+        return summary.toString();
+    }
+
+    public long getSlowThresholdMillis() { return slowThresholdMillis; }
+    public void setSlowThresholdMillis(long slowThresholdMillis) { this.slowThresholdMillis = slowThresholdMillis; }
+
+    public boolean isExplainSlowQueries() { return explainSlowQueries; }
+    public void setExplainSlowQueries(boolean explainSlowQueries) { this.explainSlowQueries = explainSlowQueries; }
+
+    public static class StatementStats {
+        private final String sql;
+        private final Set<String> parameterShapes = ConcurrentHashMap.newKeySet();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder totalRows = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder errors = new LongAdder();
+        private volatile String lastError;
+
+        public StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        void add(String parameterShape, int rowCount, long elapsedNanos) {
+            parameterShapes.add(parameterShape);
+            calls.increment();
+            totalNanos.add(elapsedNanos);
+            totalRows.add(rowCount);
+            maxNanos.accumulate(elapsedNanos);
+        }
+
+        void addError(SQLException error) {
+            errors.increment();
+            lastError = (error.getSQLState() != null ? error.getSQLState() + ": " : "") + error.getMessage();
+        }
+
+        public String getSql() { return sql; }
+        public Set<String> getParameterShapes() { return Collections.unmodifiableSet(parameterShapes); }
+        public long getCalls() { return calls.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getTotalRows() { return totalRows.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+        public long getErrors() { return errors.sum(); }
+        /** SQLState and message of the most recent failure, or null if it never failed. */
+        public String getLastError() { return lastError; }
+
+        public double getMeanMillis() {
+            long count = getCalls();
+            return count == 0 ? 0.0 : getTotalNanos() / 1_000_000.0 / count;
+        }
+    }
+
+    /** Opens a connection the caller owns, for work kept off the statement's own connection. */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    public static class SlowQuery {
+        private final String sql;
+        private final String parameterShape;
+        private final int rowCount;
+        private final long elapsedMillis;
+        private volatile String plan;
+        private final LocalDateTime timestamp;
+
+        public SlowQuery(String sql, String parameterShape, int rowCount, long elapsedMillis, String plan) {
+            this.sql = sql;
+            this.parameterShape = parameterShape;
+            this.rowCount = rowCount;
+            this.elapsedMillis = elapsedMillis;
+            this.plan = plan;
+            this.timestamp = LocalDateTime.now();
+        }
+
+        public String getSql() { return sql; }
+        public String getParameterShape() { return parameterShape; }
+        public int getRowCount() { return rowCount; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        /** The EXPLAIN ANALYZE output, or null until a background capture has finished. */
+        public String getPlan() { return plan; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+
+        void setPlan(String plan) { this.plan = plan; }
+    }
+}
@@ -0,0 +1,247 @@
+package com.lucidia.lucidia.service;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema bootstrap. Each migration runs once, in order, inside a
+ * transaction, and is recorded in {@code schema_version}. After migrating,
+ * the hot queries are EXPLAINed to confirm their indexes are still usable.
+ */
+public class SchemaManager {
+
+    // Serializes bootstraps from several app instances starting at once
+    private static final long BOOTSTRAP_LOCK_ID = 0x4C5543494449L;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create dream tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS dream_entries (
+                        id SERIAL PRIMARY KEY,
+                        user_id INTEGER NOT NULL,
+                        dream_text TEXT NOT NULL,
+                        dream_date DATE NOT NULL,
+                        sleep_quality INTEGER,
+                        lucidity_level INTEGER
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS dream_analysis (
+                        id SERIAL PRIMARY KEY,
+                        dream_id INTEGER NOT NULL REFERENCES dream_entries(id) ON DELETE CASCADE,
+                        emotion_score DOUBLE PRECISION,
+                        dominant_emotion VARCHAR(50),
+                        symbols_detected TEXT[] NOT NULL DEFAULT '{}',
+                        interpretation_text TEXT,
+                        confidence_score DOUBLE PRECISION,
+                        analysis_timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """),
+
+            // Databases created before symbols were indexed still hold a comma-joined string
+            new Migration(2, "Store symbols as text[] with a GIN index",
+                    """
+                    DO $$
+                    BEGIN
+                        IF (SELECT data_type FROM information_schema.columns
+                            WHERE table_schema = current_schema()
+                              AND table_name = 'dream_analysis' AND column_name = 'symbols_detected') <> 'ARRAY' THEN
+                            ALTER TABLE dream_analysis
+                                ALTER COLUMN symbols_detected TYPE TEXT[]
+                                USING COALESCE(string_to_array(NULLIF(symbols_detected, ''), ','), '{}'),
+                                ALTER COLUMN symbols_detected SET DEFAULT '{}';
+                        END IF;
+                    END $$
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_dream_analysis_symbols ON dream_analysis USING GIN (symbols_detected)"),
+
+            // NOT VALID: enforced for new rows without failing on legacy data
+            new Migration(3, "Range checks on ratings",
+                    """
+                    ALTER TABLE dream_entries
+                        ADD CONSTRAINT chk_dream_entries_sleep_quality CHECK (sleep_quality BETWEEN 1 AND 10) NOT VALID,
+                        ADD CONSTRAINT chk_dream_entries_lucidity_level CHECK (lucidity_level BETWEEN 0 AND 5) NOT VALID
+                    """,
+                    """
+                    ALTER TABLE dream_analysis
+                        ADD CONSTRAINT chk_dream_analysis_confidence CHECK (confidence_score BETWEEN 0 AND 1) NOT VALID
+                    """),
+
+            // Journal listing, statistics and per-day counts filter on user_id and sort or
+            // group by dream_date; the INCLUDE columns let them run as index-only scans
+            new Migration(4, "Covering indexes for the journal and analysis queries",
+                    """
+                    CREATE INDEX IF NOT EXISTS idx_dream_entries_user_date
+                        ON dream_entries (user_id, dream_date DESC) INCLUDE (id, sleep_quality, lucidity_level)
+                    """,
+                    // Latest analysis per dream (DISTINCT ON), unanalyzed checks, history joins and cascade deletes
+                    """
+                    CREATE INDEX IF NOT EXISTS idx_dream_analysis_dream_timestamp
+                        ON dream_analysis (dream_id, analysis_timestamp DESC)
+                    """,
+                    "ANALYZE dream_entries",
+                    "ANALYZE dream_analysis"),
+
+            // Saves replayed from the local write-behind log must not be inserted twice
+            new Migration(5, "Client reference for idempotent saves",
+                    "ALTER TABLE dream_entries ADD COLUMN IF NOT EXISTS client_ref UUID",
+                    """
+                    CREATE UNIQUE INDEX IF NOT EXISTS idx_dream_entries_client_ref
+                        ON dream_entries (client_ref) WHERE client_ref IS NOT NULL
+                    """),
+
+            // History pages seek to (analysis_timestamp, id) < cursor and stop after LIMIT rows
+            new Migration(6, "Keyset index for paged analysis history",
+                    """
+                    CREATE INDEX IF NOT EXISTS idx_dream_analysis_timestamp_id
+                        ON dream_analysis (analysis_timestamp DESC, id DESC)
+                    """)
+    );
+
+    // Representative shapes of the hot queries and the index each must be able to use
+    private static final List<PlanCheck> PLAN_CHECKS = List.of(
+            new PlanCheck("journal listing",
+                    "SELECT id, dream_date FROM dream_entries WHERE user_id = 1 ORDER BY dream_date DESC",
+                    "idx_dream_entries_user_date"),
+            new PlanCheck("statistics aggregates",
+                    "SELECT COUNT(*), AVG(sleep_quality), AVG(lucidity_level) FROM dream_entries WHERE user_id = 1",
+                    "idx_dream_entries_user_date"),
+            new PlanCheck("latest analysis per dream",
+                    "SELECT DISTINCT ON (dream_id) dream_id, symbols_detected FROM dream_analysis " +
+                    "WHERE dream_id = 1 ORDER BY dream_id, analysis_timestamp DESC",
+                    "idx_dream_analysis_dream_timestamp"),
+            new PlanCheck("symbol lookup",
+                    "SELECT dream_id FROM dream_analysis WHERE symbols_detected @> '{water}'",
+                    "idx_dream_analysis_symbols"),
+            new PlanCheck("analysis history page",
+                    "SELECT id FROM dream_analysis WHERE (analysis_timestamp, id) < (now(), 1) " +
+                    "ORDER BY analysis_timestamp DESC, id DESC LIMIT 50",
+                    "idx_dream_analysis_timestamp_id")
+    );
+
+    private final Connection connection;
+
+    public SchemaManager(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Applies pending migrations and verifies the query plans.
+     *
+     * @return the schema version after bootstrapping
+     */
+    public int bootstrap() throws SQLException {
+        int version = migrate();
+        List<String> problems = verifyPlans();
+        if (problems.isEmpty()) {
+            System.out.println("Schema at version " + version + "; hot queries are index-backed");
+        } else {
+            problems.forEach(problem -> System.err.println("Schema check: " + problem));
+        }
+        return version;
+    }
+
+    public int migrate() throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SELECT pg_advisory_xact_lock(" + BOOTSTRAP_LOCK_ID + ")");
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+
+            int current = getCurrentVersion(stmt);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                System.out.println("Applying schema migration " + migration.version + ": " + migration.description);
+                for (String sql : migration.statements) {
+                    stmt.execute(sql);
+                }
+                try (PreparedStatement record = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    record.setInt(1, migration.version);
+                    record.setString(2, migration.description);
+                    record.executeUpdate();
+                }
+                current = migration.version;
+            }
+
+            connection.commit();
+            return current;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * EXPLAINs each hot query with sequential scans disabled, so the check asks
+     * whether the index can serve the query rather than whether the planner
+     * prefers it on today's (possibly tiny) tables.
+     *
+     * @return one message per query whose plan does not use its index
+     */
+    public List<String> verifyPlans() throws SQLException {
+        List<String> problems = new ArrayList<>();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET LOCAL enable_seqscan = off");
+            for (PlanCheck check : PLAN_CHECKS) {
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN " + check.sql)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                if (!plan.toString().contains(check.expectedIndex)) {
+                    problems.add(check.name + " does not use " + check.expectedIndex + ":\n" + plan);
+                }
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+        return problems;
+    }
+
+    private static int getCurrentVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+
+    private static final class PlanCheck {
+        private final String name;
+        private final String sql;
+        private final String expectedIndex;
+
+        PlanCheck(String name, String sql, String expectedIndex) {
+            this.name = name;
+            this.sql = sql;
+            this.expectedIndex = expectedIndex;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lucidia.lucidia.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Reusable prepared statements for the shared connection, keyed by SQL text.
+ * A statement is checked out for exclusive use and returned when its lease is
+ * closed, so concurrent callers never share parameter state. Idle statements
+ * are kept per SQL up to a small bound, and the least recently used SQL is
+ * evicted once the cache is full.
+ *
+ * <pre>
+ * try (StatementCache.Lease lease = cache.checkout(sql)) {
+ *     PreparedStatement stmt = lease.getStatement();
+ *     ...
+ * }
+ * </pre>
+ */
+public class StatementCache implements AutoCloseable {
+    private static final int DEFAULT_MAX_SQL = 128;
+    private static final int DEFAULT_IDLE_PER_SQL = 4;
+
+    private final Connection connection;
+    private final int maxIdlePerSql;
+    private final Map<String, Deque<PreparedStatement>> idle;
+    private long hits;
+    private long misses;
+    private boolean closed;
+
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_MAX_SQL, DEFAULT_IDLE_PER_SQL);
+    }
+
+    public StatementCache(Connection connection, int maxSql, int maxIdlePerSql) {
+        this.connection = connection;
+        this.maxIdlePerSql = maxIdlePerSql;
+        this.idle = new LinkedHashMap<>(maxSql * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<PreparedStatement>> eldest) {
+                if (size() <= maxSql) {
+                    return false;
+                }
+                eldest.getValue().forEach(StatementCache::closeQuietly);
+                return true;
+            }
+        };
+    }
+
+    public Lease checkout(String sql) throws SQLException {
+        return checkout(sql, false);
+    }
+
+    public Lease checkoutReturningKeys(String sql) throws SQLException {
+        return checkout(sql, true);
+    }
+
+    private Lease checkout(String sql, boolean returnKeys) throws SQLException {
+        // The flag changes how the driver rewrites the statement, so it is part of the key
+        String key = returnKeys ? "K:" + sql : "Q:" + sql;
+        synchronized (this) {
+            Deque<PreparedStatement> statements = idle.get(key);
+            PreparedStatement cached = statements != null ? statements.pollFirst() : null;
+            if (cached != null && !cached.isClosed()) {
+                hits++;
+                return new Lease(key, cached);
+            }
+            misses++;
+        }
+
+        PreparedStatement statement = returnKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql);
+        return new Lease(key, statement);
+    }
+
+    private void release(String key, PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+            synchronized (this) {
+                if (!closed) {
+                    Deque<PreparedStatement> statements = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+                    if (statements.size() < maxIdlePerSql) {
+                        statements.addFirst(statement);
+                        return;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            // Fall through and discard the statement
+        }
+        closeQuietly(statement);
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Deque<PreparedStatement> statements : idle.values()) {
+            statements.forEach(StatementCache::closeQuietly);
+        }
+        idle.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Nothing useful to do; the connection is likely gone
+        }
+    }
+
+    /** Exclusive use of one prepared statement until closed. */
+    public final class Lease implements AutoCloseable {
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean released;
+
+        private Lease(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        public PreparedStatement getStatement() { return statement; }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(key, statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.repository.DreamChangeListener;
+import com.lucidia.lucidia.repository.DreamRepositories;
+import com.lucidia.lucidia.repository.DreamRepository;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse per-user symbol x symbol co-occurrence counts with lift and PMI.
+ * Symbols are interned to int ids and pairs are packed into a single long
+ * key, so updates and lookups never box. Each user's matrix is seeded once
+ * from the latest stored analyses and then updated as dreams are analyzed
+ * or deleted.
+ */
+public class SymbolCooccurrenceIndex implements DreamChangeListener {
+    private static SymbolCooccurrenceIndex instance;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final List<String> symbolNames = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Integer, UserMatrix> userMatrices = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> dreamOwners = new ConcurrentHashMap<>();
+
+    private final DreamRepository repository;
+
+    private SymbolCooccurrenceIndex() {
+        this.repository = DreamRepositories.getDefault();
+        DreamRepositories.addListener(this);
+    }
+
+    public static synchronized SymbolCooccurrenceIndex getInstance() {
+        if (instance == null) {
+            instance = new SymbolCooccurrenceIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Records the symbols of an analyzed dream, replacing any earlier analysis of it.
+     */
+    public void recordDream(int userId, int dreamId, List<String> symbols) {
+        UserMatrix matrix = userMatrices.get(userId);
+        // Unloaded users are seeded from stored analyses on first query instead
+        if (matrix != null) {
+            dreamOwners.put(dreamId, userId);
+            matrix.put(dreamId, toIds(symbols));
+        }
+    }
+
+    @Override
+    public void onDreamDeleted(int dreamId) {
+        Integer userId = dreamOwners.remove(dreamId);
+        if (userId != null) {
+            UserMatrix matrix = userMatrices.get(userId);
+            if (matrix != null) {
+                matrix.remove(dreamId);
+            }
+            return;
+        }
+        // Possibly among analyses still being loaded, which must not bring it back
+        for (UserMatrix matrix : userMatrices.values()) {
+            matrix.remove(dreamId);
+        }
+    }
+
+    @Override
+    public void onUserChanged(int userId) {
+        if (userMatrices.remove(userId) != null) {
+            dreamOwners.values().removeIf(owner -> owner == userId);
+        }
+    }
+
+    public double getLift(int userId, String first, String second) throws SQLException {
+        // Loaded first: seeding the matrix is what interns the user's symbols
+        UserMatrix matrix = getOrLoad(userId);
+        Integer a = symbolIds.get(first);
+        Integer b = symbolIds.get(second);
+        if (a == null || b == null || a.equals(b)) {
+            return 0.0;
+        }
+        return matrix.lift(a, b);
+    }
+
+    public double getPointwiseMutualInformation(int userId, String first, String second) throws SQLException {
+        double lift = getLift(userId, first, second);
+        return lift > 0 ? Math.log(lift) / Math.log(2) : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Symbols that appear with the given one more often than chance, strongest first.
+     */
+    public List<SymbolAssociation> getAssociations(int userId, String symbol, int minSupport, int limit) throws SQLException {
+        UserMatrix matrix = getOrLoad(userId);
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        return matrix.associations(id, minSupport, limit);
+    }
+
+    /**
+     * Strongest positively associated pairs across the user's whole journal.
+     */
+    public List<SymbolAssociation> getTopAssociations(int userId, int minSupport, int limit) throws SQLException {
+        return getOrLoad(userId).associations(-1, minSupport, limit);
+    }
+
+    /**
+     * The user's matrix, seeded from stored analyses on first use. It is
+     * registered before the seed is read, so dreams analyzed or deleted
+     * meanwhile are applied to it directly; only that user's callers wait.
+     */
+    private UserMatrix getOrLoad(int userId) throws SQLException {
+        UserMatrix matrix = userMatrices.computeIfAbsent(userId, id -> new UserMatrix());
+        matrix.load(userId);
+        return matrix;
+    }
+
+    private int[] toIds(List<String> symbols) {
+        if (symbols == null) {
+            return new int[0];
+        }
+        return symbols.stream()
+                .distinct()
+                .mapToInt(this::internSymbol)
+                .sorted()
+                .toArray();
+    }
+
+    private int internSymbol(String symbol) {
+        return symbolIds.computeIfAbsent(symbol, name -> {
+            synchronized (symbolNames) {
+                symbolNames.add(name);
+                return symbolNames.size() - 1;
+            }
+        });
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private final class UserMatrix {
+        private final Map<Integer, int[]> dreamSymbols = new HashMap<>();
+        private final PairCounts pairCounts = new PairCounts();
+        private int[] symbolCounts = new int[16];
+        private int dreamCount;
+        // Held for the whole seed, so concurrent first queries read it once
+        private final Object loadLock = new Object();
+        private volatile boolean loaded;
+        private boolean loading;
+        // Deleted while the seed was being read; it may still contain them
+        private final Set<Integer> deletedWhileLoading = new HashSet<>();
+
+        void load(int userId) throws SQLException {
+            if (loaded) {
+                return;
+            }
+            synchronized (loadLock) {
+                if (loaded) {
+                    return;
+                }
+                synchronized (this) {
+                    loading = true;
+                }
+                List<AnalysisResult> analyses;
+                try {
+                    // Not under this matrix's lock, so new analyses and deletes keep being applied meanwhile
+                    analyses = repository.getLatestAnalyses(userId, 0);
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (this) {
+                        loading = false;
+                        deletedWhileLoading.clear();
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    for (AnalysisResult analyzed : analyses) {
+                        int dreamId = analyzed.getDreamId();
+                        // An analysis recorded during the load is newer than the seed's
+                        if (!dreamSymbols.containsKey(dreamId) && !deletedWhileLoading.contains(dreamId)) {
+                            dreamOwners.put(dreamId, userId);
+                            putInternal(dreamId, toIds(analyzed.getSymbolsDetected()));
+                        }
+                    }
+                    loading = false;
+                    deletedWhileLoading.clear();
+                    loaded = true;
+                }
+            }
+        }
+
+        synchronized void put(int dreamId, int[] ids) {
+            putInternal(dreamId, ids);
+        }
+
+        private void putInternal(int dreamId, int[] ids) {
+            removeInternal(dreamId);
+            dreamSymbols.put(dreamId, ids);
+            apply(ids, 1);
+            dreamCount++;
+        }
+
+        synchronized void remove(int dreamId) {
+            if (loading) {
+                deletedWhileLoading.add(dreamId);
+            }
+            removeInternal(dreamId);
+        }
+
+        private void removeInternal(int dreamId) {
+            int[] previous = dreamSymbols.remove(dreamId);
+            if (previous != null) {
+                apply(previous, -1);
+                dreamCount--;
+            }
+        }
+
+        private void apply(int[] ids, int delta) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] >= symbolCounts.length) {
+                    symbolCounts = Arrays.copyOf(symbolCounts, Math.max(ids[i] + 1, symbolCounts.length * 2));
+                }
+                symbolCounts[ids[i]] += delta;
+                for (int j = i + 1; j < ids.length; j++) {
+                    pairCounts.add(pairKey(ids[i], ids[j]), delta);
+                }
+            }
+        }
+
+        synchronized double lift(int a, int b) {
+            return liftOf(a, b, pairCounts.get(pairKey(a, b)));
+        }
+
+        // lift = P(a,b) / (P(a) * P(b)); above 1 means the pair co-occurs more than chance
+        private double liftOf(int a, int b, int together) {
+            if (together == 0 || dreamCount == 0) {
+                return 0.0;
+            }
+            return (double) together * dreamCount / ((double) symbolCounts[a] * symbolCounts[b]);
+        }
+
+        synchronized List<SymbolAssociation> associations(int symbolId, int minSupport, int limit) {
+            List<SymbolAssociation> associations = new ArrayList<>();
+            pairCounts.forEach((key, together) -> {
+                int a = (int) (key >>> 32);
+                int b = (int) key;
+                if (together < minSupport || (symbolId >= 0 && a != symbolId && b != symbolId)) {
+                    return;
+                }
+                double lift = liftOf(a, b, together);
+                if (lift > 1.0) {
+                    // Put the queried symbol first so callers can read "first usually appears with second"
+                    boolean swap = symbolId >= 0 && b == symbolId;
+                    associations.add(new SymbolAssociation(
+                            symbolNames.get(swap ? b : a),
+                            symbolNames.get(swap ? a : b),
+                            together, lift));
+                }
+            });
+
+            associations.sort(Comparator.comparingDouble(SymbolAssociation::getLift).reversed());
+            return associations.size() > limit ? new ArrayList<>(associations.subList(0, limit)) : associations;
+        }
+    }
+
+    /**
+     * Open-addressing long -> int map; zero counts are left in place rather than deleted.
+     */
+    private static final class PairCounts {
+        private static final long EMPTY = -1L;
+
+        private long[] keys = newKeyTable(64);
+        private int[] values = new int[64];
+        private int size;
+
+        void add(long key, int delta) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int slot = find(keys, key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] += delta;
+        }
+
+        int get(long key) {
+            int slot = find(keys, key);
+            return keys[slot] == EMPTY ? 0 : values[slot];
+        }
+
+        void forEach(PairConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && values[i] > 0) {
+                    consumer.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeyTable(oldKeys.length * 2);
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int find(long[] table, long key) {
+            int mask = table.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (table[slot] != EMPTY && table[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long[] newKeyTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PairConsumer {
+        void accept(long key, int count);
+    }
+
+    public static class SymbolAssociation {
+        private final String symbol;
+        private final String associatedSymbol;
+        private final int cooccurrences;
+        private final double lift;
+
+        public SymbolAssociation(String symbol, String associatedSymbol, int cooccurrences, double lift) {
+            this.symbol = symbol;
+            this.associatedSymbol = associatedSymbol;
+            this.cooccurrences = cooccurrences;
+            this.lift = lift;
+        }
+
+        public String getSymbol() { return symbol; }
+        public String getAssociatedSymbol() { return associatedSymbol; }
+        public int getCooccurrences() { return cooccurrences; }
+        public double getLift() { return lift; }
+
+        public double getPointwiseMutualInformation() {
+            return Math.log(lift) / Math.log(2);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.model.AnalysisResult;
+import com.lucidia.lucidia.model.DreamEntry;
+import com.lucidia.lucidia.util.DatabaseConfig;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Keeps {@link LocalDreamStore} in step with PostgreSQL. Each cycle connects
+ * if the database was unreachable, then pulls what is new since the last
+ * cycle. A full reconcile, which also drops dreams deleted elsewhere, runs
+ * after every (re)connect and every few cycles. Local saves travel the other
+ * way through {@link DreamSaveQueue}, which is started here so saves left
+ * over from an offline session drain as soon as the database is back.
+ */
+public class SyncService {
+    private static SyncService instance;
+
+    // Incremental cycles between full reconciles
+    private static final int FULL_SYNC_EVERY = 10;
+
+    private final DatabaseService databaseService = DatabaseService.getInstance();
+    private final LocalDreamStore localStore = LocalDreamStore.getInstance();
+    private final Set<Integer> userIds = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private boolean started;
+    private boolean offlineReported;
+    private int cyclesSinceFullSync;
+
+    private SyncService() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lucidia-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized SyncService getInstance() {
+        if (instance == null) {
+            instance = new SyncService();
+        }
+        return instance;
+    }
+
+    /** Starts syncing the given user in the background; later calls add users. */
+    public synchronized void start(int userId) {
+        userIds.add(userId);
+        if (!started) {
+            started = true;
+            // Whether or not the database is up, saves left over from an offline session must be
+            // listed in history and replayed, and both start when the queue is built
+            scheduler.execute(this::openSaveQueue);
+            scheduler.scheduleWithFixedDelay(this::runCycle, 0, DatabaseConfig.SYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } else {
+            syncNow();
+        }
+    }
+
+    /** Runs a cycle as soon as the sync thread is free. */
+    public void syncNow() {
+        scheduler.execute(this::runCycle);
+    }
+
+    /** Called on the sync thread whenever a cycle changed the local replica. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        localStore.flush();
+    }
+
+    private void runCycle() {
+        try {
+            if (!databaseService.isConnected()) {
+                databaseService.initialize();
+                cyclesSinceFullSync = FULL_SYNC_EVERY;
+            }
+
+            boolean fullSync = cyclesSinceFullSync >= FULL_SYNC_EVERY;
+            boolean changed = false;
+            for (int userId : userIds) {
+                changed |= fullSync || !localStore.hasUser(userId) ? fullSync(userId) : pullNew(userId);
+            }
+            cyclesSinceFullSync = fullSync ? 0 : cyclesSinceFullSync + 1;
+            offlineReported = false;
+
+            if (changed) {
+                listeners.forEach(Runnable::run);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Retried on the next cycle; reads keep coming from the local store meanwhile
+            if (!offlineReported) {
+                System.err.println("Sync with PostgreSQL failed, serving the journal from the local store: " + e.getMessage());
+                offlineReported = true;
+            }
+        }
+    }
+
+    private void openSaveQueue() {
+        try {
+            DreamSaveQueue.getInstance();
+        } catch (IllegalStateException e) {
+            System.err.println("Save log unavailable, offline saves will not be replayed: " + e.getMessage());
+        }
+    }
+
+    private boolean fullSync(int userId) throws SQLException {
+        List<DreamEntry> dreams = databaseService.getAllDreams(userId);
+        List<AnalysisResult> analyses = databaseService.getLatestAnalyses(userId, 0);
+        return localStore.replaceUser(userId, dreams, analyses);
+    }
+
+    private boolean pullNew(int userId) throws SQLException {
+        List<DreamEntry> dreams = databaseService.getDreamEntriesAfter(userId, localStore.getMaxDreamId(userId));
+        List<AnalysisResult> analyses = databaseService.getLatestAnalyses(userId, localStore.getMaxAnalysisId(userId));
+        return localStore.mergeUser(userId, dreams, analyses);
+    }
+}
@@ -0,0 +1,206 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.util.AppExecutors;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Thumbnails for the images in {@code generated_images/}, kept next to them in
+ * {@code .thumbnails/} so each image is scaled down once, not on every visit.
+ * Thumbnails are made on a small background pool, newest request first.
+ * Sources are decoded with subsampling, so a large image never has to fit in
+ * memory at full size.
+ */
+public class ThumbnailService {
+    private static ThumbnailService instance;
+
+    public static final int THUMBNAIL_SIZE = 192;
+    private static final String THUMBNAIL_DIR_NAME = ".thumbnails";
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg");
+    // A few screens of tiles; older requests are for cells scrolled away long ago
+    private static final int MAX_QUEUED = 64;
+
+    private final Path imageDir;
+    private final Path thumbnailDir;
+    private final ExecutorService executor;
+    // One job per image, however many cells ask for it at once
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private ThumbnailService(Path imageDir) {
+        this.imageDir = imageDir;
+        this.thumbnailDir = imageDir.resolve(THUMBNAIL_DIR_NAME);
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+        // Newest request first: while scrolling, the cells on screen were asked for last.
+        // When full, the oldest request is dropped instead of the newest being refused.
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingDeque<>(MAX_QUEUED) {
+                    @Override
+                    public boolean offer(Runnable task) {
+                        while (!offerFirst(task)) {
+                            if (pollLast() instanceof ThumbnailJob stale) {
+                                stale.drop();
+                            }
+                        }
+                        return true;
+                    }
+                },
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lucidia-thumbnails-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static synchronized ThumbnailService getInstance() {
+        if (instance == null) {
+            instance = new ThumbnailService(Paths.get(DreamVisualizationService.OUTPUT_DIR));
+        }
+        return instance;
+    }
+
+    /** Generated images, newest first. */
+    public CompletableFuture<List<Path>> listImages() {
+        return CompletableFuture.supplyAsync(() -> {
+            if (!Files.isDirectory(imageDir)) {
+                return List.of();
+            }
+            Map<Path, Long> modified = new HashMap<>();
+            try (Stream<Path> files = Files.list(imageDir)) {
+                files.filter(ThumbnailService::isImage).forEach(file -> modified.put(file, lastModified(file)));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            List<Path> images = new ArrayList<>(modified.keySet());
+            images.sort(Comparator.comparing((Path file) -> modified.get(file)).reversed()
+                    .thenComparing(Comparator.naturalOrder()));
+            return images;
+        }, AppExecutors.io());
+    }
+
+    /**
+     * Path of the image's thumbnail, at most {@value #THUMBNAIL_SIZE} pixels on
+     * its longer side, creating it first when it is missing or older than the image.
+     * The future is cancelled if the request is dropped from a full queue.
+     */
+    public CompletableFuture<Path> thumbnail(Path image) {
+        CompletableFuture<Path> existing = inFlight.get(image);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Path> job = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(image, job);
+        if (existing != null) {
+            return existing;
+        }
+        executor.execute(new ThumbnailJob(image, job));
+        return job;
+    }
+
+    private final class ThumbnailJob implements Runnable {
+        private final Path image;
+        private final CompletableFuture<Path> job;
+
+        ThumbnailJob(Path image, CompletableFuture<Path> job) {
+            this.image = image;
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            try {
+                job.complete(createThumbnail(image));
+            } catch (IOException | RuntimeException e) {
+                job.completeExceptionally(e);
+            } finally {
+                inFlight.remove(image, job);
+            }
+        }
+
+        // The next request for this image starts a fresh job
+        void drop() {
+            inFlight.remove(image, job);
+            job.cancel(false);
+        }
+    }
+
+    private Path createThumbnail(Path image) throws IOException {
+        Path thumbnail = thumbnailDir.resolve(image.getFileName() + ".png");
+        if (Files.exists(thumbnail) && lastModified(thumbnail) >= lastModified(image)) {
+            return thumbnail;
+        }
+
+        BufferedImage source = readSubsampled(image, THUMBNAIL_SIZE);
+        double scale = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Files.createDirectories(thumbnailDir);
+        Path temp = thumbnail.resolveSibling(thumbnail.getFileName() + ".tmp");
+        if (!ImageIO.write(scaled, "png", temp.toFile())) {
+            throw new IOException("No PNG writer available");
+        }
+        Files.move(temp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return thumbnail;
+    }
+
+    // Decodes only every n-th pixel, keeping at least twice the target size for a clean final scale
+    private static BufferedImage readSubsampled(Path image, int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open " + image);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + image);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longerSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longerSide / (targetSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))
+                && Files.isRegularFile(file);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
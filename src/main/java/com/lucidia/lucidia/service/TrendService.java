@@ -0,0 +1,138 @@
+package com.lucidia.lucidia.service;
+
+import com.lucidia.lucidia.util.CountMinSketch;
+import com.lucidia.lucidia.util.SpaceSavingSketch;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Approximate global symbol and emotion trends across all users.
+ * Analyses are counted into per-day windows of Space-Saving and Count-Min
+ * sketches. Recording threads are spread over a fixed set of locked shards
+ * and readers merge the shards, so memory stays constant no matter how many
+ * dreams are analyzed or how many threads record them.
+ */
+public class TrendService {
+    private static TrendService instance;
+
+    private static final int HEAVY_HITTER_CAPACITY = 64;
+    private static final int COUNT_MIN_WIDTH = 2048;
+    private static final int COUNT_MIN_DEPTH = 4;
+    private static final int RETAINED_DAYS = 35;
+    // Symbols and emotions share one Count-Min sketch, namespaced by prefix
+    private static final String SYMBOL_PREFIX = "symbol:";
+    private static final String EMOTION_PREFIX = "emotion:";
+
+    // A power of two, so a thread picks its shard with a mask
+    private static final int SHARD_COUNT = Math.min(8,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1));
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+
+    private TrendService() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public static synchronized TrendService getInstance() {
+        if (instance == null) {
+            instance = new TrendService();
+        }
+        return instance;
+    }
+
+    /** The longest range a trend query covers; longer ranges are cut to it. */
+    public int getRetainedDays() {
+        return RETAINED_DAYS;
+    }
+
+    public void recordAnalysis(LocalDate day, String dominantEmotion, List<String> symbols) {
+        shardForCurrentThread().record(day.toEpochDay(), dominantEmotion, symbols);
+    }
+
+    // Thread ids are sequential, so they are mixed before masking to spread neighbours apart
+    private Shard shardForCurrentThread() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return shards[(hash >>> 16) & (SHARD_COUNT - 1)];
+    }
+
+    public List<SpaceSavingSketch.ItemCount> getTrendingSymbols(int days, int limit) {
+        return mergeWindows(days).symbols.topK(limit);
+    }
+
+    public List<SpaceSavingSketch.ItemCount> getTrendingEmotions(int days, int limit) {
+        return mergeWindows(days).emotions.topK(limit);
+    }
+
+    // Point estimates for any symbol, including ones that fell out of the heavy-hitter summary
+    public long estimateSymbolCount(String symbol, int days) {
+        return mergeWindows(days).frequencies.estimate(SYMBOL_PREFIX + symbol);
+    }
+
+    public long estimateEmotionCount(String emotion, int days) {
+        return mergeWindows(days).frequencies.estimate(EMOTION_PREFIX + emotion);
+    }
+
+    /**
+     * Merges every shard's windows covering the last {@code days} days, today
+     * included, dropping windows that have aged out on the way, so shards that
+     * see no more writes do not keep them.
+     */
+    private WindowSketch mergeWindows(int days) {
+        long today = LocalDate.now().toEpochDay();
+        long firstDay = today - Math.max(1, Math.min(days, RETAINED_DAYS)) + 1;
+
+        WindowSketch merged = new WindowSketch();
+        for (Shard shard : shards) {
+            shard.prune(today);
+            shard.mergeInto(merged, firstDay, today);
+        }
+        return merged;
+    }
+
+    private static final class Shard {
+        private final NavigableMap<Long, WindowSketch> windows = new TreeMap<>();
+
+        synchronized void record(long epochDay, String dominantEmotion, List<String> symbols) {
+            WindowSketch window = windows.computeIfAbsent(epochDay, day -> new WindowSketch());
+            if (dominantEmotion != null) {
+                window.emotions.add(dominantEmotion, 1);
+                window.frequencies.add(EMOTION_PREFIX + dominantEmotion, 1);
+            }
+            if (symbols != null) {
+                for (String symbol : symbols) {
+                    window.symbols.add(symbol, 1);
+                    window.frequencies.add(SYMBOL_PREFIX + symbol, 1);
+                }
+            }
+
+            prune(Math.max(epochDay, LocalDate.now().toEpochDay()));
+        }
+
+        // Drops windows that have aged out of every supported query range
+        synchronized void prune(long today) {
+            windows.headMap(today - RETAINED_DAYS).clear();
+        }
+
+        synchronized void mergeInto(WindowSketch target, long firstDay, long lastDay) {
+            for (WindowSketch window : windows.subMap(firstDay, true, lastDay, true).values()) {
+                target.merge(window);
+            }
+        }
+    }
+
+    private static final class WindowSketch {
+        private final SpaceSavingSketch symbols = new SpaceSavingSketch(HEAVY_HITTER_CAPACITY);
+        private final SpaceSavingSketch emotions = new SpaceSavingSketch(HEAVY_HITTER_CAPACITY);
+        private final CountMinSketch frequencies = new CountMinSketch(COUNT_MIN_WIDTH, COUNT_MIN_DEPTH);
+
+        void merge(WindowSketch other) {
+            symbols.merge(other.symbols);
+            emotions.merge(other.emotions);
+            frequencies.merge(other.frequencies);
+        }
+    }
+}
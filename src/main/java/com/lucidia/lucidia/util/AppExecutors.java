@@ -0,0 +1,240 @@
+package com.lucidia.lucidia.util;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The application's background threads, in three pools sized for their kind
+ * of work: {@link #io()} for the database, files and network, {@link #cpu()}
+ * for computation, and {@link #nlp()} for dream analysis, kept small so a
+ * burst of analyses cannot starve the rest. Queues are bounded; a full queue
+ * rejects new work rather than letting it pile up behind stale work.
+ * <p>
+ * Screens submit through a {@link Scope}, which cancels what they started
+ * when the user moves on. Cancelled work that has not started never runs,
+ * running work can stop early at {@link #checkCancelled()}, and FX updates
+ * scheduled through {@link Scope#fx()} are dropped once the scope has been
+ * cancelled, so stale results never replace fresh ones.
+ */
+public final class AppExecutors {
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    private static final ThreadPoolExecutor IO = newPool("lucidia-io", 4, 256);
+    private static final ThreadPoolExecutor CPU = newPool("lucidia-cpu", Math.max(2, PROCESSORS), 256);
+    private static final ThreadPoolExecutor NLP = newPool("lucidia-nlp", Math.max(1, Math.min(2, PROCESSORS / 2)), 32);
+    private static final Executor FX = Platform::runLater;
+
+    // The scoped task running on each pool thread, for checkCancelled
+    private static final ThreadLocal<ScopedTask<?>> CURRENT = new ThreadLocal<>();
+    private static final Set<Scope> openScopes = ConcurrentHashMap.newKeySet();
+
+    private AppExecutors() {}
+
+    public static Executor io() {
+        return IO;
+    }
+
+    public static Executor cpu() {
+        return CPU;
+    }
+
+    public static Executor nlp() {
+        return NLP;
+    }
+
+    /** Runs tasks on the JavaFX application thread. */
+    public static Executor fx() {
+        return FX;
+    }
+
+    /** A new scope for one screen's or feature's work; {@code name} is only used in logs. */
+    public static Scope newScope(String name) {
+        Scope scope = new Scope(name);
+        openScopes.add(scope);
+        return scope;
+    }
+
+    /**
+     * Throws {@link CancellationException} if the scoped task running on this
+     * thread has been cancelled. Long-running work calls this between steps;
+     * outside a scoped task it does nothing.
+     */
+    public static void checkCancelled() {
+        ScopedTask<?> task = CURRENT.get();
+        if (task != null && task.future.isCancelled()) {
+            throw new CancellationException("Cancelled by scope " + task.scope.name);
+        }
+    }
+
+    /**
+     * Cancels every scope, lets running tasks finish for up to
+     * {@code timeoutMillis}, then interrupts whatever is left.
+     */
+    public static void shutdown(long timeoutMillis) {
+        for (Scope scope : openScopes) {
+            scope.close();
+        }
+        ThreadPoolExecutor[] pools = {IO, CPU, NLP};
+        for (ThreadPoolExecutor pool : pools) {
+            pool.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            for (ThreadPoolExecutor pool : pools) {
+                pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ThreadPoolExecutor pool : pools) {
+            if (!pool.isTerminated()) {
+                System.err.println("Interrupting " + pool.getActiveCount() + " unfinished background task(s)");
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle pools hold no threads
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Work started by one screen, cancelled together. {@link #cancel()} drops
+     * everything submitted so far and the scope stays usable, which suits
+     * "newest request wins"; {@link #close()} also refuses new work.
+     */
+    public static final class Scope {
+        private final String name;
+        private final Set<ScopedTask<?>> tasks = ConcurrentHashMap.newKeySet();
+        // Bumped by cancel; FX updates scheduled under an older epoch are dropped
+        private volatile long epoch;
+        private volatile boolean closed;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        /** Runs {@code work} on {@code pool}; the future fails if the pool's queue is full. */
+        public <T> CompletableFuture<T> supply(Executor pool, Supplier<T> work) {
+            ScopedTask<T> task = new ScopedTask<>(this, pool, work);
+            if (closed) {
+                task.future.cancel(false);
+                return task.future;
+            }
+            tasks.add(task);
+            task.future.whenComplete((result, error) -> tasks.remove(task));
+            try {
+                pool.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+            }
+            return task.future;
+        }
+
+        public CompletableFuture<Void> run(Executor pool, Runnable work) {
+            return supply(pool, () -> {
+                work.run();
+                return null;
+            });
+        }
+
+        /**
+         * The FX thread, for the UI stages of this scope's work. A stage that
+         * reaches the FX thread after the scope was cancelled is skipped, and
+         * futures depending on it never complete.
+         */
+        public Executor fx() {
+            long scheduledEpoch = epoch;
+            return command -> Platform.runLater(() -> {
+                if (epoch == scheduledEpoch && !closed) {
+                    command.run();
+                }
+            });
+        }
+
+        /** Cancels everything submitted so far; queued tasks leave their pool's queue. */
+        public void cancel() {
+            epoch++;
+            for (ScopedTask<?> task : tasks) {
+                task.cancel();
+            }
+        }
+
+        /** Cancels this scope's work whenever the window showing {@code node} is hidden. */
+        public Scope cancelWhenHidden(Node node) {
+            node.sceneProperty()
+                    .flatMap(Scene::windowProperty)
+                    .flatMap(Window::showingProperty)
+                    .addListener((observable, wasShowing, showing) -> {
+                        // Only on hiding: a view is given its data before its window first shows
+                        if (Boolean.TRUE.equals(wasShowing) && !Boolean.TRUE.equals(showing)) {
+                            cancel();
+                        }
+                    });
+            return this;
+        }
+
+        /** Cancels everything and refuses further work. */
+        public void close() {
+            closed = true;
+            cancel();
+            openScopes.remove(this);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private static final class ScopedTask<T> implements Runnable {
+        private final Scope scope;
+        private final Executor pool;
+        private final Supplier<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        ScopedTask(Scope scope, Executor pool, Supplier<T> work) {
+            this.scope = scope;
+            this.pool = pool;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            CURRENT.set(this);
+            try {
+                future.complete(work.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+
+        void cancel() {
+            if (future.cancel(false) && pool instanceof ThreadPoolExecutor executor) {
+                // Frees the queue slot; a no-op if the task is already running
+                executor.remove(this);
+            }
+        }
+    }
+}
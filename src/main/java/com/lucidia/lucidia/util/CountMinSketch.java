@@ -0,0 +1,90 @@
+package com.lucidia.lucidia.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch: fixed-size frequency estimates that never undercount.
+ * Sketches built with the same width and depth can be merged by adding cells.
+ */
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long[][] counts;
+    private long totalCount;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[depth][width];
+    }
+
+    public void add(String item, long count) {
+        long hash = hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row][bucket(h1, h2, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    public long estimate(String item) {
+        long hash = hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][bucket(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge sketches with different dimensions");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int column = 0; column < width; column++) {
+                counts[row][column] += other.counts[row][column];
+            }
+        }
+        totalCount += other.totalCount;
+    }
+
+    public CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(width, depth);
+        copy.merge(this);
+        return copy;
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        totalCount = 0;
+    }
+
+    public long getTotalCount() { return totalCount; }
+    public int getWidth() { return width; }
+    public int getDepth() { return depth; }
+
+    // Kirsch-Mitzenmacher: derive each row's hash from two base hashes
+    private int bucket(int h1, int h2, int row) {
+        int combined = h1 + row * h2;
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    // 64-bit FNV-1a over UTF-8 bytes; stable across JVMs unlike String.hashCode seeds
+    private static long hash64(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
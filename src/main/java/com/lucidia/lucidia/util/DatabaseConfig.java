@@ -1,7 +1,35 @@
 package com.lucidia.lucidia.util;
 
+import java.nio.file.Path;
+
 public class DatabaseConfig {
     public static final String DB_URL = "jdbc:postgresql://localhost:5432/lucidia";
     public static final String DB_USER = "postgres";      // Replace with your username
     public static final String DB_PASSWORD = "preethi";  // Replace with your password
+
+    // Statements slower than this are written to the slow-query log
+    public static final long SLOW_QUERY_THRESHOLD_MS = Long.getLong("lucidia.slowQueryMillis", 250);
+    // Re-run slow read-only queries under EXPLAIN ANALYZE in the background, one at a time, and log the plan
+    public static final boolean EXPLAIN_SLOW_QUERIES = Boolean.getBoolean("lucidia.explainSlowQueries");
+
+    // Executions of a statement before PgJDBC switches it to a named server-side prepare
+    public static final int PREPARE_THRESHOLD = Integer.getInteger("lucidia.prepareThreshold", 2);
+    // Distinct SQL strings the driver keeps server-side prepared per connection
+    public static final int DRIVER_STATEMENT_CACHE_QUERIES = Integer.getInteger("lucidia.statementCacheQueries", 512);
+
+    // Where dreams and analyses are persisted: postgres, file or memory (the desktop app and CLI need postgres)
+    public static final String REPOSITORY_BACKEND = System.getProperty("lucidia.repository", "postgres");
+
+    // Read-through dream cache bounds: users held, and dreams (with their latest analysis) per user
+    public static final int CACHE_MAX_USERS = Integer.getInteger("lucidia.cache.maxUsers", 128);
+    public static final int CACHE_DREAMS_PER_USER = Integer.getInteger("lucidia.cache.dreamsPerUser", 256);
+    // How long a cached dream is trusted before it is reloaded, since other processes write to PostgreSQL too
+    public static final long CACHE_TTL_SECONDS = Long.getLong("lucidia.cache.ttlSeconds", 60);
+
+    // Seconds between background syncs of the local journal replica with PostgreSQL
+    public static final long SYNC_INTERVAL_SECONDS = Long.getLong("lucidia.syncIntervalSeconds", 30);
+
+    // Local files such as the write-behind save log and the journal replica live here
+    public static final Path LOCAL_DATA_DIR = Path.of(System.getProperty("lucidia.dataDir",
+            System.getProperty("user.home") + "/.lucidia"));
 }
@@ -0,0 +1,53 @@
+package com.lucidia.lucidia.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Hands each published item to the FX thread, in order, through the given
+ * executor; pass a {@link AppExecutors.Scope#fx()} executor so items arriving
+ * after the scope was cancelled are dropped. {@link #completion()} settles on
+ * the FX thread behind the last item, so work chained on it sees every item
+ * rendered.
+ */
+public class FxSubscriber<T> implements Flow.Subscriber<T> {
+    private final Executor fx;
+    private final Consumer<? super T> onItem;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    public FxSubscriber(Executor fx, Consumer<? super T> onItem) {
+        this.fx = fx;
+        this.onItem = onItem;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(T item) {
+        fx.execute(() -> onItem.accept(item));
+        // Requested once handed over, not once rendered: a dropped item must not stall the publisher
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fx.execute(() -> completion.completeExceptionally(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        fx.execute(() -> completion.complete(null));
+    }
+
+    /** Completes, or fails with the publisher's error, once every item has been handed to the FX thread. */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lucidia.lucidia.util;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013). Splits a
+ * series into equal buckets and keeps, from each, the point forming the
+ * largest triangle with the point kept before it and the average of the next
+ * bucket. Peaks and dips survive, which plain averaging or striding lose.
+ */
+public final class Lttb {
+
+    private Lttb() {}
+
+    /**
+     * Picks at most {@code threshold} points from {@code x[from..to)} and
+     * {@code y[from..to)}, which must be sorted by x. The first and last point
+     * are always kept.
+     *
+     * @return indexes of the kept points, ascending
+     */
+    public static int[] downsample(double[] x, double[] y, int from, int to, int threshold) {
+        int length = to - from;
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[Math.max(length, 0)];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        int count = 0;
+        // First and last points are fixed; the rest are spread over threshold - 2 buckets
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int previous = from;
+        kept[count++] = previous;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third triangle corner
+            int nextStart = from + (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(from + (int) Math.floor((bucket + 2) * bucketSize) + 1, to);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            averageX /= nextLength;
+            averageY /= nextLength;
+
+            int start = from + (int) Math.floor(bucket * bucketSize) + 1;
+            int end = from + (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; the factor does not change which point wins
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[count++] = chosen;
+            previous = chosen;
+        }
+
+        kept[count++] = to - 1;
+        return kept;
+    }
+}
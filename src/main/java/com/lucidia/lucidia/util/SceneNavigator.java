@@ -6,34 +6,37 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
 import com.lucidia.lucidia.controller.AnalysisController;
+import com.lucidia.lucidia.model.AnalysisResult;
 
 public class SceneNavigator {
 
     public static void loadScene(Stage stage, String fxmlPath, String title) throws IOException {
-        FXMLLoader loader = new FXMLLoader(SceneNavigator.class.getResource(fxmlPath));
-        Parent root = loader.load();
-        Scene scene = new Scene(root);
-        scene.getStylesheets().add(SceneNavigator.class.getResource("/css/application.css").toExternalForm());
+        // Registered views come parsed from the cache
+        ViewRegistry.View view = ViewRegistry.forPath(fxmlPath);
+        Scene scene;
+        if (view != null) {
+            scene = ViewRegistry.getScene(view, stage, null);
+        } else {
+            FXMLLoader loader = new FXMLLoader(SceneNavigator.class.getResource(fxmlPath));
+            Parent root = loader.load();
+            scene = new Scene(root);
+            scene.getStylesheets().add(SceneNavigator.class.getResource("/css/application.css").toExternalForm());
+        }
         stage.setTitle(title);
         stage.setScene(scene);
         stage.show();
     }
 
     public static void switchToAnalysisScene(Stage stage, Object analysisData) throws IOException {
-        FXMLLoader loader = new FXMLLoader(SceneNavigator.class.getResource("/fxml/analysis.fxml"));
-        Parent root = loader.load();
-
         // Pass data to analysis controller
-        AnalysisController controller = loader.getController();
-        if (analysisData != null) {
-            // You'll need to adapt this based on your data structure
-            // controller.setAnalysisData(analysisData);
-        }
+        Scene scene = ViewRegistry.getScene(ViewRegistry.View.ANALYSIS, stage, (AnalysisController controller) -> {
+            if (analysisData instanceof AnalysisResult analysis) {
+                controller.setAnalysisResult(analysis);
+            }
+        });
 
-        Scene scene = new Scene(root);
-        scene.getStylesheets().add(SceneNavigator.class.getResource("/css/application.css").toExternalForm());
         stage.setTitle("Lucidia - Dream Analysis");
         stage.setScene(scene);
         stage.show();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package com.lucidia.lucidia.util;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving heavy-hitters summary: tracks at most {@code capacity} items
+ * and guarantees every item more frequent than total/capacity is present.
+ * Each counter carries an error bound, and summaries are mergeable.
+ */
+public class SpaceSavingSketch {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String item, long count) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(item, count, 0));
+            return;
+        }
+
+        // Evict the smallest counter; the newcomer inherits its count as overestimation error
+        Counter smallest = minimum();
+        counters.remove(smallest.item);
+        counters.put(item, new Counter(item, smallest.count + count, smallest.count));
+    }
+
+    /**
+     * Merges another summary into this one. Items missing from one side are
+     * credited with that side's minimum count, which keeps the error bounds valid.
+     */
+    public void merge(SpaceSavingSketch other) {
+        long thisMinimum = counters.size() < capacity ? 0 : minimum().count;
+        long otherMinimum = other.counters.size() < other.capacity ? 0 : other.minimum().count;
+
+        Map<String, Counter> combined = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            Counter theirs = other.counters.get(counter.item);
+            long count = counter.count + (theirs != null ? theirs.count : otherMinimum);
+            long error = counter.error + (theirs != null ? theirs.error : otherMinimum);
+            combined.put(counter.item, new Counter(counter.item, count, error));
+        }
+        for (Counter theirs : other.counters.values()) {
+            if (!combined.containsKey(theirs.item)) {
+                combined.put(theirs.item, new Counter(theirs.item, theirs.count + thisMinimum, theirs.error + thisMinimum));
+            }
+        }
+
+        counters.clear();
+        combined.values().stream()
+                .sorted(Comparator.comparingLong((Counter c) -> c.count).reversed())
+                .limit(capacity)
+                .forEach(counter -> counters.put(counter.item, counter));
+    }
+
+    public SpaceSavingSketch copy() {
+        SpaceSavingSketch copy = new SpaceSavingSketch(capacity);
+        for (Counter counter : counters.values()) {
+            copy.counters.put(counter.item, new Counter(counter.item, counter.count, counter.error));
+        }
+        return copy;
+    }
+
+    public List<ItemCount> topK(int limit) {
+        return counters.values().stream()
+                .sorted(Comparator.comparingLong((Counter c) -> c.count).reversed())
+                .limit(limit)
+                .map(counter -> new ItemCount(counter.item, counter.count, counter.error))
+                .collect(Collectors.toList());
+    }
+
+    public int size() { return counters.size(); }
+    public int getCapacity() { return capacity; }
+
+    private Counter minimum() {
+        Counter smallest = null;
+        for (Counter counter : counters.values()) {
+            if (smallest == null || counter.count < smallest.count) {
+                smallest = counter;
+            }
+        }
+        return smallest;
+    }
+
+    private static final class Counter {
+        private final String item;
+        private long count;
+        private final long error;
+
+        Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    public static class ItemCount {
+        private final String item;
+        private final long count;
+        private final long error;
+
+        public ItemCount(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getItem() { return item; }
+        public long getCount() { return count; }
+        // Upper bound on how much count may overestimate the true frequency
+        public long getError() { return error; }
+        public long getGuaranteedCount() { return count - error; }
+    }
+}
@@ -0,0 +1,53 @@
+package com.lucidia.lucidia.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Collects how long each startup phase took and prints them as one line once
+ * startup has settled. Milestones are measured from JVM start where the
+ * platform reports it, so "window shown" includes JVM and JavaFX boot.
+ */
+public final class StartupTimer {
+    private static final long JVM_START_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+
+    private static final List<String> entries = new ArrayList<>();
+
+    private StartupTimer() {}
+
+    /** Records a milestone as the time since JVM start. */
+    public static void mark(String milestone) {
+        record(String.format("%s at %d ms", milestone, System.currentTimeMillis() - JVM_START_MILLIS));
+    }
+
+    /** Runs one phase on the calling thread and records how long it took. */
+    public static void time(String phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(String.format("%s %.0f ms [%s]", phase, (System.nanoTime() - start) / 1_000_000.0,
+                    Thread.currentThread().getName()));
+        }
+    }
+
+    /** Prints everything recorded so far, in the order the phases finished. */
+    public static synchronized void report() {
+        System.out.println("Startup: " + String.join(", ", entries));
+    }
+
+    private static synchronized void record(String entry) {
+        entries.add(entry);
+    }
+}
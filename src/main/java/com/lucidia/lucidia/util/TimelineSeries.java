@@ -0,0 +1,130 @@
+package com.lucidia.lucidia.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A series sorted by x with precomputed levels of detail for plotting. Level
+ * 0 is the full series; each further level is the previous one downsampled
+ * by half with {@link Lttb}. A view of any range is drawn from the coarsest
+ * level that still has enough points there, so the work per frame depends
+ * on the pixel width rather than the length of the series.
+ */
+public class TimelineSeries {
+    // Levels stop shrinking once they are this small
+    private static final int MIN_LEVEL_POINTS = 256;
+
+    private final List<double[]> levelX = new ArrayList<>();
+    private final List<double[]> levelY = new ArrayList<>();
+    private final double maxY;
+
+    public TimelineSeries(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y must have the same length");
+        }
+        levelX.add(x);
+        levelY.add(y);
+        double max = 0;
+        for (double value : y) {
+            max = Math.max(max, value);
+        }
+        this.maxY = max;
+
+        double[] currentX = x;
+        double[] currentY = y;
+        while (currentX.length / 2 >= MIN_LEVEL_POINTS) {
+            int[] kept = Lttb.downsample(currentX, currentY, 0, currentX.length, currentX.length / 2);
+            double[] nextX = new double[kept.length];
+            double[] nextY = new double[kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                nextX[i] = currentX[kept[i]];
+                nextY[i] = currentY[kept[i]];
+            }
+            levelX.add(nextX);
+            levelY.add(nextY);
+            currentX = nextX;
+            currentY = nextY;
+        }
+    }
+
+    public int size() { return levelX.get(0).length; }
+    public int getLevelCount() { return levelX.size(); }
+    public double getMaxY() { return maxY; }
+
+    public double getMinX() {
+        double[] x = levelX.get(0);
+        return x.length > 0 ? x[0] : Double.NaN;
+    }
+
+    public double getMaxX() {
+        double[] x = levelX.get(0);
+        return x.length > 0 ? x[x.length - 1] : Double.NaN;
+    }
+
+    /**
+     * At most {@code maxPoints} points covering {@code [fromX, toX]}, plus the
+     * nearest point beyond each end so lines run to the edges of the view.
+     */
+    public Sample sample(double fromX, double toX, int maxPoints) {
+        // Coarsest level that still holds at least two points per output point
+        int level = 0;
+        int[] range = visibleRange(0, fromX, toX);
+        while (level + 1 < levelX.size()) {
+            int[] coarser = visibleRange(level + 1, fromX, toX);
+            if (coarser[1] - coarser[0] < 2 * maxPoints) {
+                break;
+            }
+            level++;
+            range = coarser;
+        }
+
+        double[] x = levelX.get(level);
+        double[] y = levelY.get(level);
+        int[] kept = Lttb.downsample(x, y, range[0], range[1], maxPoints);
+        double[] sampleX = new double[kept.length];
+        double[] sampleY = new double[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            sampleX[i] = x[kept[i]];
+            sampleY[i] = y[kept[i]];
+        }
+        return new Sample(sampleX, sampleY, level);
+    }
+
+    private int[] visibleRange(int level, double fromX, double toX) {
+        double[] x = levelX.get(level);
+        int from = lowerBound(x, fromX);
+        int to = lowerBound(x, Math.nextUp(toX));
+        return new int[]{Math.max(0, from - 1), Math.min(x.length, to + 1)};
+    }
+
+    // First index whose x is at least the key
+    private static int lowerBound(double[] x, double key) {
+        int index = Arrays.binarySearch(x, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && x[index - 1] == key) {
+            index--;
+        }
+        return index;
+    }
+
+    /** Points to draw, and the level they were taken from. */
+    public static final class Sample {
+        private final double[] x;
+        private final double[] y;
+        private final int level;
+
+        Sample(double[] x, double[] y, int level) {
+            this.x = x;
+            this.y = y;
+            this.level = level;
+        }
+
+        public double[] getX() { return x; }
+        public double[] getY() { return y; }
+        public int getLevel() { return level; }
+        public int size() { return x.length; }
+    }
+}
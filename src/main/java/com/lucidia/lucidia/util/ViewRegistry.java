@@ -0,0 +1,232 @@
+package com.lucidia.lucidia.util;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Parses each secondary view's FXML once and keeps the root, controller and
+ * scene for the rest of the session. {@link #preload()} parses the common
+ * views on background threads at startup (nodes may be built off the FX
+ * thread until they are shown), so opening a view later costs no parse;
+ * callers hand the cached controller fresh data each time instead.
+ */
+public final class ViewRegistry {
+
+    public enum View {
+        ANALYSIS("/fxml/analysis-view.fxml", "/css/application.css", "Lucidia - Dream Analysis", 1400, 800, true),
+        ANALYTICS("/fxml/analytics-dashboard.fxml", "/css/analytics.css", "Lucidia - Dream Analytics Dashboard", 1200, 800, true),
+        DREAM_JOURNAL("/fxml/dream-journal.fxml", "/css/application.css", "Lucidia - Dream Journal", 1000, 700, true),
+        GALLERY("/fxml/gallery.fxml", "/css/analytics.css", "Lucidia - Dream Art Gallery", 1200, 800, false);
+
+        private final String fxmlPath;
+        private final String cssPath;
+        private final String title;
+        private final double width;
+        private final double height;
+        private final boolean preloaded;
+
+        View(String fxmlPath, String cssPath, String title, double width, double height, boolean preloaded) {
+            this.fxmlPath = fxmlPath;
+            this.cssPath = cssPath;
+            this.title = title;
+            this.width = width;
+            this.height = height;
+            this.preloaded = preloaded;
+        }
+    }
+
+    private static final Map<View, CompletableFuture<LoadedView>> views = new EnumMap<>(View.class);
+
+    private ViewRegistry() {}
+
+    /**
+     * Starts parsing every preloaded view in the background. The returned
+     * future completes once they have all been attempted; failures are logged
+     * and retried when the view is first shown.
+     */
+    public static CompletableFuture<Void> preload() {
+        List<CompletableFuture<?>> loads = new ArrayList<>();
+        for (View view : View.values()) {
+            if (view.preloaded) {
+                loads.add(load(view, true).exceptionally(error -> null));
+            }
+        }
+        return CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Shows a view in its own window, reusing the window if it is already
+     * open. {@code onShow} receives the controller before the window appears,
+     * to give it fresh data.
+     */
+    public static <C> Stage show(View view, Consumer<C> onShow) throws IOException {
+        LoadedView loaded = get(view);
+        @SuppressWarnings("unchecked")
+        C controller = (C) loaded.controller;
+        if (onShow != null) {
+            onShow.accept(controller);
+        }
+
+        if (loaded.stage == null) {
+            loaded.stage = new Stage();
+            loaded.stage.setTitle(view.title);
+            loaded.stage.setScene(loaded.getScene());
+            loaded.stage.setMinWidth(Math.min(view.width, 1000));
+            loaded.stage.setMinHeight(Math.min(view.height, 700));
+        }
+        loaded.stage.show();
+        loaded.stage.toFront();
+        return loaded.stage;
+    }
+
+    /**
+     * The cached scene of a view, for putting into an existing window. If the
+     * scene is already in another window, a fresh copy is parsed instead.
+     * {@code onShow} receives the controller of whichever scene is returned.
+     */
+    public static <C> Scene getScene(View view, Stage target, Consumer<C> onShow) throws IOException {
+        LoadedView loaded = get(view);
+        if (loaded.getScene().getWindow() != null && loaded.getScene().getWindow() != target) {
+            loaded = parse(view);
+        }
+        if (onShow != null) {
+            @SuppressWarnings("unchecked")
+            C controller = (C) loaded.controller;
+            onShow.accept(controller);
+        }
+        return loaded.getScene();
+    }
+
+    /**
+     * Hands the view's controller to {@code action} if the view is on screen,
+     * for pushing live updates to it. Does nothing, and returns false, otherwise.
+     */
+    public static <C> boolean ifShowing(View view, Consumer<C> action) {
+        CompletableFuture<LoadedView> future;
+        synchronized (ViewRegistry.class) {
+            future = views.get(view);
+        }
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return false;
+        }
+        LoadedView loaded = future.join();
+        Window window = loaded.scene != null ? loaded.scene.getWindow() : null;
+        if (window == null || !window.isShowing()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        C controller = (C) loaded.controller;
+        action.accept(controller);
+        return true;
+    }
+
+    /** Looks a view up by its FXML path, or returns null if it is not registered. */
+    public static View forPath(String fxmlPath) {
+        for (View view : View.values()) {
+            if (view.fxmlPath.equals(fxmlPath)) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    // Waits for a preload already under way; parses on the calling thread otherwise
+    private static LoadedView get(View view) throws IOException {
+        try {
+            return load(view, false).join();
+        } catch (CompletionException e) {
+            synchronized (ViewRegistry.class) {
+                // Let the next attempt try again rather than repeat the failure
+                views.remove(view);
+            }
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Could not load " + view.fxmlPath, e.getCause());
+        }
+    }
+
+    private static synchronized CompletableFuture<LoadedView> load(View view, boolean background) {
+        CompletableFuture<LoadedView> existing = views.get(view);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<LoadedView> future;
+        if (background) {
+            future = CompletableFuture.supplyAsync(() -> parseUnchecked(view), AppExecutors.cpu());
+            future.whenComplete((loaded, error) -> {
+                if (error != null) {
+                    System.err.println("Could not preload " + view.fxmlPath + ": " + error.getMessage());
+                }
+            });
+        } else {
+            future = new CompletableFuture<>();
+            try {
+                future.complete(parse(view));
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e instanceof IOException io ? new UncheckedIOException(io) : e);
+            }
+        }
+        views.put(view, future);
+        return future;
+    }
+
+    private static LoadedView parseUnchecked(View view) {
+        try {
+            return parse(view);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LoadedView parse(View view) throws IOException {
+        URL url = ViewRegistry.class.getResource(view.fxmlPath);
+        if (url == null) {
+            throw new IOException("View not found: " + view.fxmlPath);
+        }
+        FXMLLoader loader = new FXMLLoader(url);
+        // The preload thread's context class loader is not necessarily the application's
+        loader.setClassLoader(ViewRegistry.class.getClassLoader());
+        Parent root = loader.load();
+        return new LoadedView(view, root, loader.getController());
+    }
+
+    private static final class LoadedView {
+        private final View view;
+        private final Parent root;
+        private final Object controller;
+        private Scene scene;
+        private Stage stage;
+
+        LoadedView(View view, Parent root, Object controller) {
+            this.view = view;
+            this.root = root;
+            this.controller = controller;
+        }
+
+        Scene getScene() {
+            if (scene == null) {
+                scene = new Scene(root, view.width, view.height);
+                URL css = ViewRegistry.class.getResource(view.cssPath);
+                if (css != null) {
+                    scene.getStylesheets().add(css.toExternalForm());
+                }
+            }
+            return scene;
+        }
+    }
+}
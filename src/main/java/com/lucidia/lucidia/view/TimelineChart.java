@@ -0,0 +1,346 @@
+package com.lucidia.lucidia.view;
+
+import com.lucidia.lucidia.model.DailyDreamSummary;
+import com.lucidia.lucidia.util.TimelineSeries;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal timeline drawn on a single Canvas: dreams per day, sleep quality
+ * and emotion intensity, one lane each. Unlike an XYChart it creates no node
+ * per point; every frame draws at most one point per pixel column, taken from
+ * the series' precomputed levels of detail. Drag to pan, scroll to zoom,
+ * double-click to show the whole journal again.
+ */
+public class TimelineChart extends Region {
+    private static final double LABEL_WIDTH = 110;
+    private static final double PADDING = 10;
+    private static final double AXIS_HEIGHT = 22;
+    private static final double LANE_GAP = 12;
+    private static final double MIN_VISIBLE_DAYS = 7;
+    private static final double ZOOM_PER_SCROLL_UNIT = 1.0015;
+    private static final int[] TICK_STEPS_DAYS = {1, 2, 7, 14, 30, 91, 182, 365, 730, 1825};
+
+    private static final Color BACKGROUND = Color.web("#1a1a2e");
+    private static final Color GRID = Color.web("#DDA0DD", 0.15);
+    private static final Color TEXT = Color.web("#DDA0DD");
+    private static final Font FONT = Font.font(11);
+
+    private final Canvas canvas = new Canvas();
+    private final AnimationTimer redraw;
+    private TimelineData data;
+    private double viewStart;
+    private double viewEnd;
+    private double dragStartX;
+    private double dragViewStart;
+
+    public TimelineChart() {
+        getChildren().add(canvas);
+        setMinHeight(180);
+        setPrefHeight(280);
+
+        // Coalesces any number of changes within one pulse into a single repaint
+        redraw = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                draw();
+            }
+        };
+
+        setOnMousePressed(this::handleMousePressed);
+        setOnMouseDragged(this::handleMouseDragged);
+        setOnMouseClicked(this::handleMouseClicked);
+        setOnScroll(this::handleScroll);
+    }
+
+    /**
+     * Builds the lanes and their levels of detail. This is the expensive
+     * part, so it is meant to run off the FX thread before {@link #setData}.
+     */
+    public static TimelineData prepare(List<DailyDreamSummary> days) {
+        if (days.isEmpty()) {
+            return new TimelineData(List.of(), 0, 0);
+        }
+        double first = days.get(0).getDate().toEpochDay();
+        double last = days.get(days.size() - 1).getDate().toEpochDay();
+
+        // Days without dreams count as zero; ratings only exist on days that have them
+        double[] countX = new double[(int) (last - first) + 1];
+        double[] countY = new double[countX.length];
+        for (int i = 0; i < countX.length; i++) {
+            countX[i] = first + i;
+        }
+        List<Double> sleepX = new ArrayList<>();
+        List<Double> sleepY = new ArrayList<>();
+        List<Double> emotionX = new ArrayList<>();
+        List<Double> emotionY = new ArrayList<>();
+        for (DailyDreamSummary day : days) {
+            double x = day.getDate().toEpochDay();
+            countY[(int) (x - first)] = day.getDreamCount();
+            if (day.getAverageSleepQuality() != null) {
+                sleepX.add(x);
+                sleepY.add(day.getAverageSleepQuality());
+            }
+            if (day.getAverageEmotionScore() != null) {
+                emotionX.add(x);
+                emotionY.add(day.getAverageEmotionScore());
+            }
+        }
+
+        List<Lane> lanes = List.of(
+                new Lane("Dreams per day", Color.web("#DA70D6"), new TimelineSeries(countX, countY)),
+                new Lane("Sleep quality", Color.web("#87CEFA"), new TimelineSeries(toArray(sleepX), toArray(sleepY))),
+                new Lane("Emotion intensity", Color.web("#FFB6C1"), new TimelineSeries(toArray(emotionX), toArray(emotionY))));
+        return new TimelineData(lanes, first, last);
+    }
+
+    /** Shows prepared data, zoomed out to the whole range. */
+    public void setData(TimelineData data) {
+        this.data = data;
+        resetView();
+    }
+
+    public void resetView() {
+        if (data != null) {
+            viewStart = data.firstDay;
+            viewEnd = Math.max(data.lastDay, data.firstDay + MIN_VISIBLE_DAYS);
+        }
+        requestRedraw();
+    }
+
+    private void requestRedraw() {
+        redraw.start();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(snapSizeX(getWidth()));
+        canvas.setHeight(snapSizeY(getHeight()));
+        requestRedraw();
+    }
+
+    // ===== INTERACTION =====
+
+    private void handleMousePressed(MouseEvent event) {
+        dragStartX = event.getX();
+        dragViewStart = viewStart;
+    }
+
+    private void handleMouseDragged(MouseEvent event) {
+        double plotWidth = plotRight() - LABEL_WIDTH;
+        if (data == null || plotWidth <= 0) {
+            return;
+        }
+        double span = viewEnd - viewStart;
+        double shift = (dragStartX - event.getX()) / plotWidth * span;
+        setView(dragViewStart + shift, span);
+    }
+
+    private void handleMouseClicked(MouseEvent event) {
+        if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+            resetView();
+        }
+    }
+
+    private void handleScroll(ScrollEvent event) {
+        double plotWidth = plotRight() - LABEL_WIDTH;
+        if (data == null || plotWidth <= 0 || event.getDeltaY() == 0) {
+            return;
+        }
+        // Zoom around the day under the pointer, so it stays where it is
+        double fraction = Math.max(0, Math.min(1, (event.getX() - LABEL_WIDTH) / plotWidth));
+        double anchor = viewStart + fraction * (viewEnd - viewStart);
+        double span = (viewEnd - viewStart) * Math.pow(ZOOM_PER_SCROLL_UNIT, -event.getDeltaY());
+        double fullSpan = Math.max(data.lastDay - data.firstDay, MIN_VISIBLE_DAYS);
+        span = Math.max(MIN_VISIBLE_DAYS, Math.min(fullSpan, span));
+        setView(anchor - fraction * span, span);
+        event.consume();
+    }
+
+    // Keeps the view inside the journal's date range
+    private void setView(double start, double span) {
+        double fullEnd = Math.max(data.lastDay, data.firstDay + MIN_VISIBLE_DAYS);
+        start = Math.max(data.firstDay, Math.min(fullEnd - span, start));
+        viewStart = start;
+        viewEnd = start + span;
+        requestRedraw();
+    }
+
+    // ===== DRAWING =====
+
+    private double plotRight() {
+        return getWidth() - PADDING;
+    }
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, width, height);
+        gc.setFont(FONT);
+
+        if (data == null || data.lanes.isEmpty()) {
+            gc.setFill(TEXT);
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(data == null ? "Loading timeline..." : "Record dreams to build your timeline", width / 2, height / 2);
+            return;
+        }
+
+        double left = LABEL_WIDTH;
+        double right = plotRight();
+        double top = PADDING;
+        double bottom = height - AXIS_HEIGHT;
+        if (right - left < 2 || bottom - top < 2) {
+            return;
+        }
+
+        drawTimeAxis(gc, left, right, top, bottom);
+
+        int lanes = data.lanes.size();
+        double laneHeight = (bottom - top - LANE_GAP * (lanes - 1)) / lanes;
+        int pixels = (int) Math.ceil(right - left);
+        double span = viewEnd - viewStart;
+
+        gc.save();
+        for (int i = 0; i < lanes; i++) {
+            Lane lane = data.lanes.get(i);
+            double laneTop = top + i * (laneHeight + LANE_GAP);
+            double laneBottom = laneTop + laneHeight;
+
+            gc.setFill(TEXT);
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.TOP);
+            gc.fillText(lane.name, PADDING, laneTop);
+            gc.setFill(lane.color);
+            gc.fillText(String.format("max %.1f", lane.series.getMaxY()), PADDING, laneTop + 14);
+            gc.setStroke(GRID);
+            gc.setLineWidth(1);
+            gc.strokeLine(left, laneBottom + 0.5, right, laneBottom + 0.5);
+
+            if (lane.series.size() == 0) {
+                continue;
+            }
+            TimelineSeries.Sample sample = lane.series.sample(viewStart, viewEnd, pixels);
+            double scaleY = lane.series.getMaxY() > 0 ? (laneHeight - 4) / lane.series.getMaxY() : 0;
+            double[] xs = new double[sample.size()];
+            double[] ys = new double[sample.size()];
+            for (int p = 0; p < sample.size(); p++) {
+                xs[p] = left + (sample.getX()[p] - viewStart) / span * (right - left);
+                ys[p] = laneBottom - sample.getY()[p] * scaleY;
+            }
+
+            gc.beginPath();
+            gc.rect(left, laneTop, right - left, laneHeight + 1);
+            gc.clip();
+            gc.setStroke(lane.color);
+            gc.setLineWidth(1.5);
+            if (sample.size() == 1) {
+                gc.strokeLine(xs[0] - 2, ys[0], xs[0] + 2, ys[0]);
+            } else {
+                gc.strokePolyline(xs, ys, sample.size());
+            }
+            gc.restore();
+            gc.save();
+        }
+        gc.restore();
+    }
+
+    private void drawTimeAxis(GraphicsContext gc, double left, double right, double top, double bottom) {
+        double span = viewEnd - viewStart;
+        double pixelsPerDay = (right - left) / span;
+        int step = TICK_STEPS_DAYS[TICK_STEPS_DAYS.length - 1];
+        for (int candidate : TICK_STEPS_DAYS) {
+            if (candidate * pixelsPerDay >= 90) {
+                step = candidate;
+                break;
+            }
+        }
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(step >= 365 ? "yyyy" : step >= 30 ? "MMM yyyy" : "MMM d");
+
+        gc.setStroke(GRID);
+        gc.setLineWidth(1);
+        gc.setFill(TEXT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        for (long day = alignTick((long) Math.ceil(viewStart), step); day <= viewEnd; day = nextTick(day, step)) {
+            double x = Math.floor(left + (day - viewStart) * pixelsPerDay) + 0.5;
+            gc.strokeLine(x, top, x, bottom);
+            gc.fillText(LocalDate.ofEpochDay(day).format(format), x, bottom + 4);
+        }
+    }
+
+    // Month and year ticks land on the first of the month or year
+    private static long alignTick(long day, int step) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        if (step >= 365) {
+            LocalDate year = date.withDayOfYear(1);
+            return (year.isBefore(date) ? year.plusYears(1) : year).toEpochDay();
+        }
+        if (step >= 30) {
+            LocalDate month = date.withDayOfMonth(1);
+            return (month.isBefore(date) ? month.plusMonths(1) : month).toEpochDay();
+        }
+        return day;
+    }
+
+    private static long nextTick(long day, int step) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        if (step >= 365) {
+            return date.plusYears(step / 365).toEpochDay();
+        }
+        if (step >= 30) {
+            return date.plusMonths(step / 30).toEpochDay();
+        }
+        return day + step;
+    }
+
+    private static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /** Lanes ready to draw, built by {@link #prepare}. */
+    public static final class TimelineData {
+        private final List<Lane> lanes;
+        private final double firstDay;
+        private final double lastDay;
+
+        TimelineData(List<Lane> lanes, double firstDay, double lastDay) {
+            this.lanes = lanes;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+    }
+
+    private static final class Lane {
+        private final String name;
+        private final Color color;
+        private final TimelineSeries series;
+
+        Lane(String name, Color color, TimelineSeries series) {
+            this.name = name;
+            this.color = color;
+            this.series = series;
+        }
+    }
+}
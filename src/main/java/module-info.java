@@ -3,6 +3,8 @@ module com.lucidia.dreamoracle {
     requires javafx.fxml;
     requires java.sql;
     requires java.desktop;
+    requires jdk.httpserver;
+    requires org.postgresql.jdbc;
 
     // Add Jackson modules
     requires com.fasterxml.jackson.databind;
@@ -17,4 +19,8 @@ module com.lucidia.dreamoracle {
     exports com.lucidia.lucidia.controller;
     exports com.lucidia.lucidia.model;
     exports com.lucidia.lucidia.service;
+    exports com.lucidia.lucidia.repository;
+    exports com.lucidia.lucidia.server;
+    exports com.lucidia.lucidia.view;
+    exports com.lucidia.lucidia.cli;
 }